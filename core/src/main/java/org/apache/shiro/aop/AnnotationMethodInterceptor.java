@@ -19,6 +19,10 @@
 package org.apache.shiro.aop;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * MethodInterceptor that inspects a specific annotation on the method invocation before continuing
@@ -41,6 +45,11 @@ public abstract class AnnotationMethodInterceptor extends MethodInterceptorSuppo
      */
     private AnnotationResolver resolver;
 
+    /**
+     * The annotations resolved so far, per target class and method.
+     */
+    private volatile ClassValue<Map<Method, Optional<Annotation>>> annotations = newAnnotationCache();
+
     /**
      * Constructs an <code>AnnotationMethodInterceptor</code> with the
      * {@link AnnotationHandler AnnotationHandler} that will be used to process annotations of a
@@ -90,6 +99,7 @@ public abstract class AnnotationMethodInterceptor extends MethodInterceptorSuppo
      */
     public void setHandler(AnnotationHandler handler) {
         this.handler = handler;
+        this.annotations = newAnnotationCache();
     }
 
     /**
@@ -116,6 +126,7 @@ public abstract class AnnotationMethodInterceptor extends MethodInterceptorSuppo
      */
     public void setResolver(AnnotationResolver resolver) {
         this.resolver = resolver;
+        this.annotations = newAnnotationCache();
     }
 
     /**
@@ -139,12 +150,31 @@ public abstract class AnnotationMethodInterceptor extends MethodInterceptorSuppo
      * <p/>
      * The default implementation acquires the annotation using an annotation
      * {@link #getResolver resolver} using the internal annotation {@link #getHandler handler}'s
-     * {@link org.apache.shiro.aop.AnnotationHandler#getAnnotationClass() annotationClass}.
+     * {@link org.apache.shiro.aop.AnnotationHandler#getAnnotationClass() annotationClass}.  The result is cached
+     * per invoked method and target class, so the resolver is only consulted on the first invocation.
      *
      * @param mi the MethodInvocation wrapping the Method from which the Annotation will be acquired.
      * @return the Annotation that this interceptor will process for the specified method invocation.
      */
     protected Annotation getAnnotation(MethodInvocation mi) {
-        return getResolver().getAnnotation(mi, getHandler().getAnnotationClass());
+        Method method = mi != null ? mi.getMethod() : null;
+        if (method == null) {
+            //let the resolver report the invalid invocation:
+            return getResolver().getAnnotation(mi, getHandler().getAnnotationClass());
+        }
+        Object target = mi.getThis();
+        Class<?> targetClass = target != null ? target.getClass() : method.getDeclaringClass();
+        return annotations.get(targetClass).computeIfAbsent(method,
+                m -> Optional.ofNullable(getResolver().getAnnotation(mi, getHandler().getAnnotationClass())))
+                .orElse(null);
+    }
+
+    private static ClassValue<Map<Method, Optional<Annotation>>> newAnnotationCache() {
+        return new ClassValue<Map<Method, Optional<Annotation>>>() {
+            @Override
+            protected Map<Method, Optional<Annotation>> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<Method, Optional<Annotation>>();
+            }
+        };
     }
 }
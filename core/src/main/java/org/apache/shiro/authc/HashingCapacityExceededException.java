@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authc;
+
+/**
+ * Thrown when an authentication attempt could not be verified because too many password hashes are being computed
+ * concurrently and the wait for hashing capacity was exceeded.
+ *
+ * <p>Unlike most other {@code AuthenticationException}s this says nothing about the submitted credentials or the
+ * account; the attempt may simply be retried later, e.g. by answering with HTTP status 503 and a
+ * {@code Retry-After} header.
+ *
+ * @see org.apache.shiro.authc.credential.PasswordHashingLimiter
+ * @since 3.1.0
+ */
+public class HashingCapacityExceededException extends AuthenticationException {
+
+    /**
+     * Creates a new HashingCapacityExceededException.
+     */
+    public HashingCapacityExceededException() {
+        super();
+    }
+
+    /**
+     * Constructs a new HashingCapacityExceededException.
+     *
+     * @param message the reason for the exception
+     */
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new HashingCapacityExceededException.
+     *
+     * @param cause the underlying Throwable that caused this exception to be thrown.
+     */
+    public HashingCapacityExceededException(Throwable cause) {
+        super(cause);
+    }
+
+    /**
+     * Constructs a new HashingCapacityExceededException.
+     *
+     * @param message the reason for the exception
+     * @param cause   the underlying Throwable that caused this exception to be thrown.
+     */
+    public HashingCapacityExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
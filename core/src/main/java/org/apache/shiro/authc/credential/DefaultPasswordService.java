@@ -34,6 +34,8 @@ import org.slf4j.LoggerFactory;
 
 import java.security.MessageDigest;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.requireNonNull;
 import static org.apache.shiro.crypto.hash.SimpleHashProvider.Parameters.PARAMETER_ITERATIONS;
@@ -60,6 +62,13 @@ public class DefaultPasswordService implements HashingPasswordService {
     private HashService hashService;
     private HashFormat hashFormat;
     private HashFormatFactory hashFormatFactory;
+    private PasswordHashingLimiter hashingLimiter;
+    private volatile int parsedHashCacheSize;
+
+    /**
+     * Parsed saved hashes, keyed by their formatted string.
+     */
+    private final Map<String, Hash> parsedHashes = new ConcurrentHashMap<String, Hash>();
 
     /**
      * used to avoid excessive log noise
@@ -99,7 +108,7 @@ public class DefaultPasswordService implements HashingPasswordService {
             return null;
         }
         HashRequest request = createHashRequest(plaintextBytes);
-        return hashService.computeHash(request);
+        return computeHash(request);
     }
 
     @Override
@@ -116,13 +125,61 @@ public class DefaultPasswordService implements HashingPasswordService {
 
         if (hashFormat instanceof Shiro1CryptFormat) {
             HashRequest request = createHashRequestShiro1Compatibility(plaintextBytes, saved);
-            Hash computed = hashService.computeHash(request);
-            return constantEquals(saved.toString(), computed.toString());
+            Hash computed = computeHash(request);
+            //compare the raw digests - formatting them first only adds encoding work:
+            return MessageDigest.isEqual(saved.getBytes(), computed.getBytes());
         } else {
-            return saved.matchesPassword(plaintextBytes);
+            return matchesPassword(saved, plaintextBytes);
         }
     }
 
+    /**
+     * Returns whether the given plaintext matches the saved hash, computing the hash within the limits of any
+     * configured {@link #getHashingLimiter() hashingLimiter}.
+     *
+     * @param saved     the saved password hash
+     * @param plaintext the submitted plaintext password
+     * @return {@code true} if the plaintext matches the saved hash, {@code false} otherwise.
+     * @throws org.apache.shiro.authc.HashingCapacityExceededException if the hashing limiter rejected the
+     *                                                                  computation.
+     * @since 3.1.0
+     */
+    protected boolean matchesPassword(Hash saved, ByteSource plaintext) {
+        PasswordHashingLimiter limiter = this.hashingLimiter;
+        return limiter != null ? limiter.execute(() -> saved.matchesPassword(plaintext)) : saved.matchesPassword(plaintext);
+    }
+
+    private Hash computeHash(HashRequest request) {
+        PasswordHashingLimiter limiter = this.hashingLimiter;
+        return limiter != null ? limiter.execute(() -> hashService.computeHash(request)) : hashService.computeHash(request);
+    }
+
+    /**
+     * Returns whether the given saved password should be re-hashed with the current configuration of this service,
+     * i.e. whether it is a {@code $shiro1$} formatted hash while another {@link #getHashFormat() hashFormat} is
+     * configured, or whether it was hashed with an algorithm other than the
+     * {@link HashService#getDefaultAlgorithmName() default algorithm} of the {@link #getHashService() hashService}.
+     * Saved passwords whose format cannot be parsed never require re-hashing.
+     *
+     * @param saved the saved password, either a {@link Hash} or a formatted hash String.
+     * @return {@code true} if the saved password should be re-hashed, {@code false} otherwise.
+     * @see PasswordMatcher#setRehashHandler(PasswordRehashHandler)
+     * @since 3.1.0
+     */
+    public boolean isRehashRequired(Object saved) {
+        Hash savedHash = null;
+        if (saved instanceof String formatted) {
+            if (formatted.startsWith(Shiro1CryptFormat.MCF_PREFIX) && !(hashFormat instanceof Shiro1CryptFormat)) {
+                return true;
+            }
+            savedHash = parseSavedHash(formatted);
+        } else if (saved instanceof Hash hash) {
+            savedHash = hash;
+        }
+        String algorithmName = getHashService().getDefaultAlgorithmName();
+        return savedHash != null && algorithmName != null && !algorithmName.equalsIgnoreCase(savedHash.getAlgorithmName());
+    }
+
     private boolean constantEquals(String savedHash, String computedHash) {
 
         byte[] savedHashByteArray = savedHash.getBytes();
@@ -198,11 +255,9 @@ public class DefaultPasswordService implements HashingPasswordService {
         //match the current HashService configuration values.  This is a very nice feature
         //for password comparisons because it ensures backwards compatibility even after
         //configuration changes.
-        HashFormat discoveredFormat = this.hashFormatFactory.getInstance(saved);
-
-        if (discoveredFormat instanceof ParsableHashFormat parsableHashFormat) {
-            Hash savedHash = parsableHashFormat.parse(saved);
+        Hash savedHash = parseSavedHash(saved);
 
+        if (savedHash != null) {
             return passwordsMatch(submittedPlaintext, savedHash);
         }
 
@@ -215,12 +270,40 @@ public class DefaultPasswordService implements HashingPasswordService {
         //The saved text value can't be reconstituted into a Hash instance.  We need to format the
         //submittedPlaintext and then compare this formatted value with the saved value:
         HashRequest request = createHashRequest(plaintextBytes);
-        Hash computed = this.hashService.computeHash(request);
+        Hash computed = computeHash(request);
         String formatted = this.hashFormat.format(computed);
 
         return constantEquals(saved, formatted);
     }
 
+    /**
+     * Reconstitutes the given saved formatted hash, or returns {@code null} if its format cannot be parsed.  If a
+     * {@link #setParsedHashCacheSize(int) parsedHashCacheSize} is set, hashes parsed before are returned from the
+     * cache.
+     *
+     * @param saved the saved formatted hash
+     * @return the parsed hash, or {@code null} if the format of the saved hash is not parsable.
+     */
+    private Hash parseSavedHash(String saved) {
+        int cacheSize = this.parsedHashCacheSize;
+        Hash savedHash = cacheSize > 0 ? parsedHashes.get(saved) : null;
+        if (savedHash != null) {
+            return savedHash;
+        }
+        HashFormat discoveredFormat = this.hashFormatFactory.getInstance(saved);
+        if (!(discoveredFormat instanceof ParsableHashFormat parsableHashFormat)) {
+            return null;
+        }
+        savedHash = parsableHashFormat.parse(saved);
+        if (cacheSize > 0 && savedHash != null) {
+            if (parsedHashes.size() >= cacheSize) {
+                parsedHashes.clear();
+            }
+            parsedHashes.put(saved, savedHash);
+        }
+        return savedHash;
+    }
+
     public HashService getHashService() {
         return hashService;
     }
@@ -243,5 +326,59 @@ public class DefaultPasswordService implements HashingPasswordService {
 
     public void setHashFormatFactory(HashFormatFactory hashFormatFactory) {
         this.hashFormatFactory = hashFormatFactory;
+        this.parsedHashes.clear();
+    }
+
+    /**
+     * Returns the maximum number of parsed saved hashes kept by
+     * {@link #passwordsMatch(Object, String) passwordsMatch(Object, String)}, or {@code 0} (the default) if saved
+     * hashes are parsed for every comparison.
+     *
+     * @return the maximum number of cached parsed hashes, {@code 0} if disabled.
+     * @since 3.1.0
+     */
+    public int getParsedHashCacheSize() {
+        return parsedHashCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of parsed saved hashes kept by
+     * {@link #passwordsMatch(Object, String) passwordsMatch(Object, String)}.  Comparing a password against a
+     * formatted hash string requires discovering its format and parsing it (decoding the salt and hash bytes and the
+     * hash parameters); with a cache, each distinct saved string is parsed only once.  Once the maximum is reached,
+     * all cached hashes are discarded.  A value of {@code 0} or less disables the cache.
+     * <p/>
+     * Only the saved hashes, which are not secret to the realm providing them, are cached; submitted passwords never
+     * are.
+     *
+     * @param parsedHashCacheSize the maximum number of cached parsed hashes, {@code 0} to disable.
+     * @since 3.1.0
+     */
+    public void setParsedHashCacheSize(int parsedHashCacheSize) {
+        this.parsedHashCacheSize = parsedHashCacheSize;
+        this.parsedHashes.clear();
+    }
+
+    /**
+     * Returns the limiter bounding the number of password hashes computed concurrently, or {@code null} (the
+     * default) if hashes are computed without limits.
+     *
+     * @return the hashing limiter, or {@code null} if hashing is unlimited.
+     * @since 3.1.0
+     */
+    public PasswordHashingLimiter getHashingLimiter() {
+        return hashingLimiter;
+    }
+
+    /**
+     * Sets the limiter bounding the number of password hashes computed concurrently.  All hashes computed by this
+     * service, as well as those computed by a {@link PasswordMatcher} using this service, are subject to it; attempts
+     * exceeding its capacity fail with a {@link org.apache.shiro.authc.HashingCapacityExceededException}.
+     *
+     * @param hashingLimiter the hashing limiter, or {@code null} to compute hashes without limits.
+     * @since 3.1.0
+     */
+    public void setHashingLimiter(PasswordHashingLimiter hashingLimiter) {
+        this.hashingLimiter = hashingLimiter;
     }
 }
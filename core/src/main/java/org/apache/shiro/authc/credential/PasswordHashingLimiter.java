@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authc.credential;
+
+import org.apache.shiro.authc.HashingCapacityExceededException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many password hashes are computed at the same time.
+ * <p/>
+ * Memory-hard algorithms such as Argon2 allocate their full memory cost for every hash being computed, so during a
+ * login storm the heap required grows with the number of concurrent authentication attempts.  A
+ * {@code PasswordHashingLimiter} admits at most {@link #getMaxConcurrentHashes() maxConcurrentHashes} computations at
+ * once; further callers wait in line, at most {@link #getMaxQueuedHashes() maxQueuedHashes} of them for up to
+ * {@link #getMaxWaitMillis() maxWaitMillis} each.  Callers that find the line full, or whose wait times out, fail
+ * fast with a {@link HashingCapacityExceededException}, which signals that the attempt may be retried.
+ * <p/>
+ * Hashes are computed on the calling thread, so this bounds memory use without handing credentials to another
+ * thread.  The current {@link #getActiveHashes() active} and {@link #getQueuedHashes() queued} counts and the total
+ * number of {@link #getRejectedHashes() rejected} attempts can be exposed as metrics.
+ * <p/>
+ * As at most {@code maxConcurrentHashes} computations run at once, this is also the number of Argon2 working memory
+ * slots worth keeping for reuse, e.g. with {@code Argon2HashProvider.setMemoryPoolSlots(int)}.
+ * <p/>
+ * A limiter is configured on a {@link DefaultPasswordService#setHashingLimiter(PasswordHashingLimiter)
+ * DefaultPasswordService} and is then also applied by a {@link PasswordMatcher} using that service.  Its limits
+ * should be set before it is put to use.
+ *
+ * @since 3.1.0
+ */
+public class PasswordHashingLimiter {
+
+    private static final int DEFAULT_QUEUE_FACTOR = 4;
+
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 5000L;
+
+    private volatile Semaphore permits;
+
+    private int maxConcurrentHashes;
+
+    private int maxQueuedHashes;
+
+    private long maxWaitMillis;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates a limiter admitting one concurrent hash per available processor, with a queue of four times that size
+     * and a maximum wait of five seconds.
+     */
+    public PasswordHashingLimiter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a limiter admitting the given number of concurrent hashes, with a queue of four times that size
+     * and a maximum wait of five seconds.
+     *
+     * @param maxConcurrentHashes the maximum number of hashes computed at the same time.
+     */
+    public PasswordHashingLimiter(int maxConcurrentHashes) {
+        setMaxConcurrentHashes(maxConcurrentHashes);
+        this.maxQueuedHashes = maxConcurrentHashes * DEFAULT_QUEUE_FACTOR;
+        this.maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+    }
+
+    /**
+     * Computes the given hash once capacity is available.
+     *
+     * @param hashing the hash computation.
+     * @param <T>     the result type of the computation.
+     * @return the result of the computation.
+     * @throws HashingCapacityExceededException if the queue is full or the wait for capacity timed out.
+     */
+    public <T> T execute(Supplier<T> hashing) throws HashingCapacityExceededException {
+        Semaphore semaphore = this.permits;
+        if (!semaphore.tryAcquire()) {
+            awaitPermit(semaphore);
+        }
+        try {
+            return hashing.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private void awaitPermit(Semaphore semaphore) {
+        if (queued.incrementAndGet() > maxQueuedHashes) {
+            queued.decrementAndGet();
+            throw reject("the hashing queue is full (" + maxQueuedHashes + " waiting)");
+        }
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("the thread was interrupted while waiting");
+        } finally {
+            queued.decrementAndGet();
+        }
+        if (!acquired) {
+            throw reject("no hashing capacity became available within " + maxWaitMillis + " ms");
+        }
+    }
+
+    private HashingCapacityExceededException reject(String reason) {
+        rejected.incrementAndGet();
+        return new HashingCapacityExceededException("Password hash not computed: " + reason
+                + ".  The attempt may be retried later.");
+    }
+
+    /**
+     * Returns the maximum number of hashes computed at the same time.
+     *
+     * @return the maximum number of hashes computed at the same time.
+     */
+    public int getMaxConcurrentHashes() {
+        return maxConcurrentHashes;
+    }
+
+    /**
+     * Sets the maximum number of hashes computed at the same time.
+     *
+     * @param maxConcurrentHashes the maximum number of hashes computed at the same time, at least {@code 1}.
+     */
+    public void setMaxConcurrentHashes(int maxConcurrentHashes) {
+        if (maxConcurrentHashes < 1) {
+            throw new IllegalArgumentException("maxConcurrentHashes must be at least 1.");
+        }
+        this.maxConcurrentHashes = maxConcurrentHashes;
+        this.permits = new Semaphore(maxConcurrentHashes, true);
+    }
+
+    /**
+     * Returns the maximum number of callers waiting for hashing capacity before further callers are rejected.
+     *
+     * @return the maximum number of waiting callers.
+     */
+    public int getMaxQueuedHashes() {
+        return maxQueuedHashes;
+    }
+
+    /**
+     * Sets the maximum number of callers waiting for hashing capacity before further callers are rejected.  A value
+     * of {@code 0} rejects every caller that cannot start hashing immediately.
+     *
+     * @param maxQueuedHashes the maximum number of waiting callers.
+     */
+    public void setMaxQueuedHashes(int maxQueuedHashes) {
+        this.maxQueuedHashes = maxQueuedHashes;
+    }
+
+    /**
+     * Returns the number of milliseconds a caller waits for hashing capacity before it is rejected.
+     *
+     * @return the maximum wait in milliseconds.
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Sets the number of milliseconds a caller waits for hashing capacity before it is rejected.
+     *
+     * @param maxWaitMillis the maximum wait in milliseconds.
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Returns the number of hashes currently being computed.
+     *
+     * @return the number of hashes currently being computed.
+     */
+    public int getActiveHashes() {
+        return maxConcurrentHashes - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of callers currently waiting for hashing capacity (the queue depth).
+     *
+     * @return the number of waiting callers.
+     */
+    public int getQueuedHashes() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the total number of callers rejected because no hashing capacity was available.
+     *
+     * @return the number of rejected callers.
+     */
+    public long getRejectedHashes() {
+        return rejected.get();
+    }
+}
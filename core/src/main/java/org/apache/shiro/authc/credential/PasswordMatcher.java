@@ -23,6 +23,8 @@ import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.crypto.hash.Hash;
 import org.apache.shiro.lang.util.ByteSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A {@link CredentialsMatcher} that employs best-practices comparisons for hashed text passwords.
@@ -34,7 +36,11 @@ import org.apache.shiro.lang.util.ByteSource;
  * @since 1.2
  */
 public class PasswordMatcher implements CredentialsMatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PasswordMatcher.class);
+
     private PasswordService passwordService;
+    private PasswordRehashHandler rehashHandler;
 
     public PasswordMatcher() {
         this.passwordService = new DefaultPasswordService();
@@ -49,14 +55,42 @@ public class PasswordMatcher implements CredentialsMatcher {
         Object storedCredentials = getStoredPassword(info);
         assertStoredCredentialsType(storedCredentials);
 
+        boolean matched = passwordsMatch(service, submittedPassword, storedCredentials);
+        if (matched && this.rehashHandler != null) {
+            rehashIfRequired(service, token, info, submittedPassword, storedCredentials);
+        }
+        return matched;
+    }
+
+    private static boolean passwordsMatch(PasswordService service, Object submittedPassword, Object storedCredentials) {
         if (storedCredentials instanceof Hash hashedPassword) {
-            return hashedPassword.matchesPassword(ByteSource.Util.bytes(submittedPassword));
+            ByteSource submittedBytes = ByteSource.Util.bytes(submittedPassword);
+            if (service instanceof DefaultPasswordService defaultPasswordService) {
+                //honor any hashing limiter of the service:
+                return defaultPasswordService.matchesPassword(hashedPassword, submittedBytes);
+            }
+            return hashedPassword.matchesPassword(submittedBytes);
         }
         //otherwise they are a String (asserted in the 'assertStoredCredentialsType' method call above):
         String formatted = (String) storedCredentials;
         return service.passwordsMatch(submittedPassword, formatted);
     }
 
+    private void rehashIfRequired(PasswordService service, AuthenticationToken token, AuthenticationInfo info,
+                                  Object submittedPassword, Object storedCredentials) {
+        if (!(service instanceof DefaultPasswordService defaultPasswordService)
+                || !defaultPasswordService.isRehashRequired(storedCredentials)) {
+            return;
+        }
+        try {
+            String rehashed = defaultPasswordService.encryptPassword(submittedPassword);
+            this.rehashHandler.onRehash(token, info, rehashed);
+        } catch (RuntimeException e) {
+            //the account has been authenticated - a failed migration must not fail the login:
+            LOGGER.warn("Unable to re-hash the legacy password of account [{}].", info.getPrincipals(), e);
+        }
+    }
+
     @Override
     public Optional<AuthenticationInfo> createSimulatedCredentials() {
         return SimpleCredentialsMatcher.makeSimulatedAuthenticationInfo(ensurePasswordService());
@@ -101,4 +135,29 @@ public class PasswordMatcher implements CredentialsMatcher {
     public void setPasswordService(PasswordService passwordService) {
         this.passwordService = passwordService;
     }
+
+    /**
+     * Returns the handler receiving re-hashed legacy passwords, or {@code null} (the default) if legacy passwords are
+     * not migrated.
+     *
+     * @return the handler receiving re-hashed legacy passwords, or {@code null} if none is configured.
+     * @since 3.1.0
+     */
+    public PasswordRehashHandler getRehashHandler() {
+        return rehashHandler;
+    }
+
+    /**
+     * Sets the handler receiving re-hashed legacy passwords.  If set, and the {@link #getPasswordService()
+     * passwordService} is a {@link DefaultPasswordService} that
+     * {@link DefaultPasswordService#isRehashRequired(Object) requires} the saved password to be re-hashed, every
+     * successful match hashes the submitted password with the service's current configuration and hands the
+     * formatted result to the handler.  Failures while re-hashing are logged and do not affect the match.
+     *
+     * @param rehashHandler the handler receiving re-hashed legacy passwords, or {@code null} to disable migration.
+     * @since 3.1.0
+     */
+    public void setRehashHandler(PasswordRehashHandler rehashHandler) {
+        this.rehashHandler = rehashHandler;
+    }
 }
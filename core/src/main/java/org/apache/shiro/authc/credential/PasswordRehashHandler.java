@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authc.credential;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+
+/**
+ * Receives passwords that a {@link PasswordMatcher} re-hashed with the current configuration of its
+ * {@link DefaultPasswordService} after a successful authentication against a legacy saved hash, e.g. a
+ * {@code $shiro1$} hash or one computed with an algorithm other than the configured default.
+ * <p/>
+ * Implementations typically replace the account's saved password with the given formatted hash, migrating accounts
+ * transparently as their users log in.
+ *
+ * @see PasswordMatcher#setRehashHandler(PasswordRehashHandler)
+ * @see DefaultPasswordService#isRehashRequired(Object)
+ * @since 3.1.0
+ */
+public interface PasswordRehashHandler {
+
+    /**
+     * Callback triggered when the submitted password of a successful authentication attempt has been re-hashed.
+     *
+     * @param token            the authentication token that was successfully authenticated.
+     * @param info             the account data holding the legacy saved password.
+     * @param rehashedPassword the submitted password, hashed and formatted with the current configuration, ready to be
+     *                         saved in place of the legacy password.
+     */
+    void onRehash(AuthenticationToken token, AuthenticationInfo info, String rehashedPassword);
+}
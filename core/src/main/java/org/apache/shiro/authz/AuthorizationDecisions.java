@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a batch authorization request: the grant/deny decision for every permission string and role
+ * identifier that was asked about, evaluated against a single snapshot of the Subject's authorization state.
+ *
+ * <p>Views that render many permission-guarded elements (menus, toolbars, tables) can ask for every decision up
+ * front via {@link Authorizer#getAuthorizationDecisions(org.apache.shiro.subject.PrincipalCollection,
+ * Collection, Collection)} or {@link org.apache.shiro.subject.Subject#getAuthorizationDecisions(Collection,
+ * Collection)} and then query this object, instead of performing one authorization round-trip per element.
+ *
+ * <p>Instances are immutable.  Asking for a permission or role that was not part of the original request results
+ * in an {@link IllegalArgumentException} rather than a silent denial, since that is almost always a programming
+ * error.
+ *
+ * @since 3.1.0
+ */
+public final class AuthorizationDecisions {
+
+    private final Map<String, Boolean> permissions;
+    private final Map<String, Boolean> roles;
+
+    /**
+     * Creates a new instance with the given permission and role decisions, keyed by the permission string or role
+     * identifier that was requested.  Iteration order of the given maps is retained.
+     *
+     * @param permissions the permission decisions, may be {@code null}.
+     * @param roles       the role decisions, may be {@code null}.
+     */
+    public AuthorizationDecisions(Map<String, Boolean> permissions, Map<String, Boolean> roles) {
+        this.permissions = copy(permissions);
+        this.roles = copy(roles);
+    }
+
+    /**
+     * Creates a new instance from the parallel arrays returned by the array-based {@link Authorizer} methods, for
+     * example {@link Authorizer#isPermitted(org.apache.shiro.subject.PrincipalCollection, String...)} and
+     * {@link Authorizer#hasRoles(org.apache.shiro.subject.PrincipalCollection, List)}.
+     *
+     * @param permissions the requested permission strings.
+     * @param permitted   the decision for each permission, at the same index.
+     * @param roles       the requested role identifiers.
+     * @param hasRoles    the decision for each role, at the same index.
+     * @return the decisions.
+     */
+    public static AuthorizationDecisions of(List<String> permissions, boolean[] permitted,
+                                            List<String> roles, boolean[] hasRoles) {
+        return new AuthorizationDecisions(toMap(permissions, permitted), toMap(roles, hasRoles));
+    }
+
+    /**
+     * Returns decisions denying every requested permission and role, used for Subjects without an identity.
+     *
+     * @param permissions the requested permission strings, may be {@code null}.
+     * @param roles       the requested role identifiers, may be {@code null}.
+     * @return the decisions.
+     */
+    public static AuthorizationDecisions denyAll(Collection<String> permissions, Collection<String> roles) {
+        return new AuthorizationDecisions(toMap(permissions, null), toMap(roles, null));
+    }
+
+    /**
+     * Returns {@code true} if the requested permission was granted, {@code false} otherwise.
+     *
+     * @param permission a permission string that was part of the request.
+     * @return {@code true} if the requested permission was granted, {@code false} otherwise.
+     * @throws IllegalArgumentException if the permission was not part of the request.
+     */
+    public boolean isPermitted(String permission) {
+        return lookup(permissions, permission, "Permission");
+    }
+
+    /**
+     * Returns {@code true} if the Subject has the requested role, {@code false} otherwise.
+     *
+     * @param roleIdentifier a role identifier that was part of the request.
+     * @return {@code true} if the Subject has the requested role, {@code false} otherwise.
+     * @throws IllegalArgumentException if the role was not part of the request.
+     */
+    public boolean hasRole(String roleIdentifier) {
+        return lookup(roles, roleIdentifier, "Role");
+    }
+
+    /**
+     * Returns {@code true} if every requested permission was granted (or none were requested).
+     *
+     * @return {@code true} if every requested permission was granted.
+     */
+    public boolean isPermittedAll() {
+        return !permissions.containsValue(Boolean.FALSE);
+    }
+
+    /**
+     * Returns {@code true} if the Subject has every requested role (or none were requested).
+     *
+     * @return {@code true} if the Subject has every requested role.
+     */
+    public boolean hasAllRoles() {
+        return !roles.containsValue(Boolean.FALSE);
+    }
+
+    /**
+     * Returns an unmodifiable view of the permission decisions, in request order.
+     *
+     * @return an unmodifiable view of the permission decisions.
+     */
+    public Map<String, Boolean> getPermissionDecisions() {
+        return permissions;
+    }
+
+    /**
+     * Returns an unmodifiable view of the role decisions, in request order.
+     *
+     * @return an unmodifiable view of the role decisions.
+     */
+    public Map<String, Boolean> getRoleDecisions() {
+        return roles;
+    }
+
+    private static boolean lookup(Map<String, Boolean> decisions, String key, String type) {
+        Boolean decision = decisions.get(key);
+        if (decision == null) {
+            throw new IllegalArgumentException(type + " [" + key + "] was not part of the authorization request.");
+        }
+        return decision;
+    }
+
+    private static Map<String, Boolean> copy(Map<String, Boolean> decisions) {
+        if (decisions == null || decisions.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(new LinkedHashMap<>(decisions));
+    }
+
+    private static Map<String, Boolean> toMap(Collection<String> keys, boolean[] values) {
+        Map<String, Boolean> map = new LinkedHashMap<>();
+        if (keys != null) {
+            int i = 0;
+            for (String key : keys) {
+                boolean value = values != null && i < values.length && values[i];
+                //the same key requested twice yields the same decision, keep a grant if either said so:
+                map.merge(key, value, Boolean::logicalOr);
+                i++;
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorizationDecisions{permissions=" + permissions + ", roles=" + roles + "}";
+    }
+}
@@ -20,7 +20,9 @@ package org.apache.shiro.authz;
 
 import org.apache.shiro.subject.PrincipalCollection;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -268,4 +270,57 @@ public interface Authorizer {
      */
     void checkRoles(PrincipalCollection subjectPrincipal, String... roleIdentifiers) throws AuthorizationException;
 
+    /**
+     * Evaluates all of the given permission strings and role identifiers for the corresponding Subject/user in a
+     * single batch and returns the individual decisions.
+     *
+     * <p>Implementations are encouraged to override this method so that the Subject's authorization state is looked
+     * up only once for the whole batch rather than once per permission or role.  The default implementation simply
+     * delegates to {@link #isPermitted(PrincipalCollection, String...)} and {@link #hasRoles(PrincipalCollection, List)}.
+     *
+     * @param principals      the application-specific subject/user identifier.
+     * @param permissions     the String representations of the Permissions to check, may be {@code null}.
+     * @param roleIdentifiers the application-specific role identifiers to check, may be {@code null}.
+     * @return the decision for every requested permission and role.
+     * @since 3.1.0
+     */
+    default AuthorizationDecisions getAuthorizationDecisions(PrincipalCollection principals,
+                                                             Collection<String> permissions,
+                                                             Collection<String> roleIdentifiers) {
+        List<String> perms = permissions != null ? new ArrayList<>(permissions) : Collections.emptyList();
+        List<String> roles = roleIdentifiers != null ? new ArrayList<>(roleIdentifiers) : Collections.emptyList();
+        boolean[] permitted = perms.isEmpty() ? new boolean[0] : isPermitted(principals, perms.toArray(new String[0]));
+        boolean[] hasRoles = roles.isEmpty() ? new boolean[0] : hasRoles(principals, roles);
+        return AuthorizationDecisions.of(perms, permitted, roles, hasRoles);
+    }
+
+    /**
+     * Returns the instance ids among the specified ones on which the corresponding Subject/user is permitted the
+     * specified permission, i.e. the ids for which {@code permissionPrefix + ":" + id} is permitted, in their
+     * original order.  For example, with a {@code permissionPrefix} of {@code document:read} this returns the
+     * documents the Subject may read.
+     *
+     * <p>Implementations are encouraged to override this method so that the Subject's authorization state is looked
+     * up only once for all instances.  The default implementation simply calls
+     * {@link #isPermitted(PrincipalCollection, String)} for each instance.
+     *
+     * @param principals       the application-specific subject/user identifier.
+     * @param permissionPrefix the String representation of the Permission without its instance part.
+     * @param instanceIds      the ids of the instances to check.
+     * @return the permitted instance ids, in their original order.
+     * @since 3.1.0
+     */
+    default List<String> filterPermitted(PrincipalCollection principals, String permissionPrefix,
+                                         Collection<String> instanceIds) {
+        List<String> permitted = new ArrayList<>();
+        if (instanceIds != null) {
+            for (String instanceId : instanceIds) {
+                if (isPermitted(principals, permissionPrefix + ":" + instanceId)) {
+                    permitted.add(instanceId);
+                }
+            }
+        }
+        return permitted;
+    }
+
 }
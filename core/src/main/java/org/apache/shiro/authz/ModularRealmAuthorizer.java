@@ -18,6 +18,8 @@
  */
 package org.apache.shiro.authz;
 
+import org.apache.shiro.authz.permission.PermissionCatalog;
+import org.apache.shiro.authz.permission.PermissionCatalogAware;
 import org.apache.shiro.authz.permission.PermissionResolver;
 import org.apache.shiro.authz.permission.PermissionResolverAware;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
@@ -25,16 +27,36 @@ import org.apache.shiro.authz.permission.RolePermissionResolverAware;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 
 /**
  * A <tt>ModularRealmAuthorizer</tt> is an <tt>Authorizer</tt> implementation that consults one or more configured
  * {@link Realm Realm}s during an authorization operation.
+ * <p/>
+ * The batched checks - {@link #isPermitted(PrincipalCollection, String...)},
+ * {@link #isPermitted(PrincipalCollection, List)}, {@link #hasRoles(PrincipalCollection, List)},
+ * {@link #getAuthorizationDecisions(PrincipalCollection, Collection, Collection)} and
+ * {@link #filterPermitted(PrincipalCollection, String, Collection)} - consult each realm once for the whole batch.
+ * If a subclass overrides {@link #isPermitted(PrincipalCollection, String)},
+ * {@link #isPermitted(PrincipalCollection, Permission)} or {@link #hasRole(PrincipalCollection, String)}, the
+ * batched checks instead call the overridden method once per item, as they did before batching was introduced.
  *
  * @since 0.2
  */
+@SuppressWarnings("checkstyle:MethodCount")
 public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAware, RolePermissionResolverAware {
 
     /**
@@ -54,6 +76,46 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     protected RolePermissionResolver rolePermissionResolver;
 
+    /**
+     * The catalog of frequently checked permissions to be used by <em>all</em> configured realms, or {@code null}.
+     */
+    private PermissionCatalog permissionCatalog;
+
+    /**
+     * Whether realms are consulted concurrently rather than one after the other.
+     */
+    private boolean parallelRealmEvaluationEnabled;
+
+    /**
+     * Executor used to consult realms concurrently, {@code null} for the default.
+     */
+    private Executor realmEvaluationExecutor;
+
+    /**
+     * Milliseconds to wait for any single realm during concurrent evaluation, {@code 0} for no limit.
+     */
+    private long realmTimeout;
+
+    /**
+     * Per-realm overrides of {@link #realmTimeout}, keyed by realm name.
+     */
+    private Map<String, Long> realmTimeouts;
+
+    /**
+     * Whether only the realms that authenticated the Subject (and any global realms) are consulted.
+     */
+    private boolean realmRoutingEnabled;
+
+    /**
+     * Names of the realms that are consulted for every Subject when realm routing is enabled.
+     */
+    private Set<String> globalRealmNames;
+
+    /**
+     * Whether a subclass overrides one of the single-item checks, which the batched checks must then dispatch through.
+     */
+    private final boolean singleChecksOverridden = overridesSingleChecks(getClass());
+
     /**
      * Default no-argument constructor, does nothing.
      */
@@ -88,6 +150,202 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
         this.realms = realms;
         applyPermissionResolverToRealms();
         applyRolePermissionResolverToRealms();
+        applyPermissionCatalogToRealms();
+    }
+
+    /**
+     * Returns the realms to consult for an authorization check of the specified Subject.
+     * <p/>
+     * If {@link #isRealmRoutingEnabled() realm routing} is enabled and the principals carry the names of the realms
+     * that provided them, this returns only those realms plus any {@link #getGlobalRealmNames() global realms}, in
+     * configured order.  Otherwise all configured {@link #getRealms() realms} are returned.
+     *
+     * @param principals the Subject's principals.
+     * @return the realms to consult for an authorization check of the specified Subject.
+     * @since 3.1.0
+     */
+    protected Collection<Realm> getRealms(PrincipalCollection principals) {
+        Collection<Realm> realms = getRealms();
+        if (!isRealmRoutingEnabled() || principals == null) {
+            return realms;
+        }
+        Set<String> realmNames = principals.getRealmNames();
+        if (realmNames == null || realmNames.isEmpty()) {
+            return realms;
+        }
+        Set<String> globalRealms = getGlobalRealmNames();
+        List<Realm> routed = new ArrayList<>(realms.size());
+        for (Realm realm : realms) {
+            String name = realm.getName();
+            if (realmNames.contains(name) || globalRealms != null && globalRealms.contains(name)) {
+                routed.add(realm);
+            }
+        }
+        return routed;
+    }
+
+    /**
+     * Returns {@code true} if only the realms that provided a Subject's principals (and any
+     * {@link #getGlobalRealmNames() global realms}) are consulted during an authorization check, {@code false}
+     * (the default) if all configured realms are consulted.
+     *
+     * @return {@code true} if authorization checks are routed to the realms that provided the Subject's principals.
+     * @since 3.1.0
+     */
+    public boolean isRealmRoutingEnabled() {
+        return realmRoutingEnabled;
+    }
+
+    /**
+     * Sets whether only the realms that provided a Subject's principals, as reported by
+     * {@link PrincipalCollection#getRealmNames()}, are consulted during an authorization check.  Realms that grant
+     * roles or permissions to Subjects authenticated elsewhere (e.g. a database realm assigning roles to LDAP users)
+     * must be listed in the {@link #setGlobalRealmNames(Set) globalRealmNames}.  Principal collections that carry no
+     * realm names are still checked against all realms.
+     *
+     * @param realmRoutingEnabled whether authorization checks are routed to the realms that provided the Subject's
+     *                            principals.
+     * @since 3.1.0
+     */
+    public void setRealmRoutingEnabled(boolean realmRoutingEnabled) {
+        this.realmRoutingEnabled = realmRoutingEnabled;
+    }
+
+    /**
+     * Returns the names of the realms that are consulted for every Subject when
+     * {@link #isRealmRoutingEnabled() realm routing} is enabled.
+     *
+     * @return the names of the realms that are consulted for every Subject, possibly {@code null}.
+     * @since 3.1.0
+     */
+    public Set<String> getGlobalRealmNames() {
+        return globalRealmNames;
+    }
+
+    /**
+     * Sets the names of the realms that are consulted for every Subject when
+     * {@link #isRealmRoutingEnabled() realm routing} is enabled, regardless of which realms provided the Subject's
+     * principals.  For example, in INI:
+     * <pre>
+     * authorizer.realmRoutingEnabled = true
+     * authorizer.globalRealmNames = rolesRealm
+     * </pre>
+     *
+     * @param globalRealmNames the names of the realms that are consulted for every Subject.
+     * @since 3.1.0
+     */
+    public void setGlobalRealmNames(Set<String> globalRealmNames) {
+        this.globalRealmNames = globalRealmNames;
+    }
+
+    /**
+     * Returns {@code true} if the configured realms are consulted concurrently during an authorization check,
+     * {@code false} (the default) if they are consulted one after the other.
+     *
+     * @return {@code true} if the configured realms are consulted concurrently.
+     * @since 3.1.0
+     */
+    public boolean isParallelRealmEvaluationEnabled() {
+        return parallelRealmEvaluationEnabled;
+    }
+
+    /**
+     * Sets whether the configured realms are consulted concurrently during an authorization check.
+     * <p/>
+     * When enabled, every {@link Authorizer} realm is called on the
+     * {@link #setRealmEvaluationExecutor(Executor) realmEvaluationExecutor} with the current {@code Subject} bound,
+     * and the check completes as soon as one realm grants it, instead of paying the sum of all realms' latencies.
+     * A realm that does not answer within its {@link #setRealmTimeout(long) timeout} is treated as denying the check,
+     * and its call is interrupted; a realm that does not respond to interruption keeps running until it returns.
+     * This is primarily useful when several realms query remote data sources (e.g. LDAP and a database) and their
+     * results are not cached.
+     *
+     * @param parallelRealmEvaluationEnabled whether the configured realms are consulted concurrently.
+     * @since 3.1.0
+     */
+    public void setParallelRealmEvaluationEnabled(boolean parallelRealmEvaluationEnabled) {
+        this.parallelRealmEvaluationEnabled = parallelRealmEvaluationEnabled;
+    }
+
+    /**
+     * Returns the {@code Executor} used to consult realms concurrently, or {@code null} (the default) to use one
+     * virtual thread per realm call where the JVM supports virtual threads and a shared pool of daemon threads
+     * otherwise.
+     *
+     * @return the {@code Executor} used to consult realms concurrently, or {@code null} for the default.
+     * @since 3.1.0
+     */
+    public Executor getRealmEvaluationExecutor() {
+        return realmEvaluationExecutor;
+    }
+
+    /**
+     * Sets the {@code Executor} used to consult realms concurrently when
+     * {@link #setParallelRealmEvaluationEnabled(boolean) parallel realm evaluation} is enabled.
+     *
+     * @param realmEvaluationExecutor the {@code Executor} used to consult realms concurrently, or {@code null} for
+     *                                the default.
+     * @since 3.1.0
+     */
+    public void setRealmEvaluationExecutor(Executor realmEvaluationExecutor) {
+        this.realmEvaluationExecutor = realmEvaluationExecutor;
+    }
+
+    /**
+     * Returns the number of milliseconds to wait for a realm during parallel evaluation before treating it as
+     * denying the check, or {@code 0} (the default) to wait indefinitely.
+     *
+     * @return the default realm timeout in milliseconds.
+     * @since 3.1.0
+     */
+    public long getRealmTimeout() {
+        return realmTimeout;
+    }
+
+    /**
+     * Sets the number of milliseconds to wait for a realm during parallel evaluation before treating it as denying
+     * the check.  Applies to all realms without an entry in the {@link #setRealmTimeouts(Map) realmTimeouts}.
+     *
+     * @param realmTimeout the default realm timeout in milliseconds, {@code 0} or less to wait indefinitely.
+     * @since 3.1.0
+     */
+    public void setRealmTimeout(long realmTimeout) {
+        this.realmTimeout = realmTimeout;
+    }
+
+    /**
+     * Returns the per-realm timeouts in milliseconds used during parallel evaluation, keyed by realm name.
+     *
+     * @return the per-realm timeouts in milliseconds, keyed by realm name, possibly {@code null}.
+     * @since 3.1.0
+     */
+    public Map<String, Long> getRealmTimeouts() {
+        return realmTimeouts;
+    }
+
+    /**
+     * Sets the per-realm timeouts in milliseconds used during parallel evaluation, keyed by realm name.  Realms
+     * without an entry use the {@link #setRealmTimeout(long) realmTimeout}.  For example, in INI:
+     * <pre>
+     * authorizer.realmTimeouts = ldapRealm:250, jdbcRealm:100
+     * </pre>
+     * Values are converted when set, so those given as Strings (as INI configuration does) are parsed here.
+     *
+     * @param realmTimeouts the per-realm timeouts in milliseconds, keyed by realm name.
+     * @throws IllegalArgumentException if a timeout is neither a number nor a String representing one.
+     * @since 3.1.0
+     */
+    public void setRealmTimeouts(Map<String, Long> realmTimeouts) {
+        if (realmTimeouts == null) {
+            this.realmTimeouts = null;
+            return;
+        }
+        Map<String, Long> timeouts = new LinkedHashMap<>(realmTimeouts.size());
+        //values configured via INI are Strings despite the declared type:
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) realmTimeouts).entrySet()) {
+            timeouts.put(String.valueOf(entry.getKey()).trim(), toMillis(entry.getKey(), entry.getValue()));
+        }
+        this.realmTimeouts = Collections.unmodifiableMap(timeouts);
     }
 
     /**
@@ -200,6 +458,49 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
         }
     }
 
+    /**
+     * Returns the {@link PermissionCatalog} of frequently checked permissions used by <em>all</em> configured realms,
+     * or {@code null} (the default) if none is configured.
+     *
+     * @return the {@code PermissionCatalog} used by all configured realms, or {@code null}.
+     * @since 3.1.0
+     */
+    public PermissionCatalog getPermissionCatalog() {
+        return permissionCatalog;
+    }
+
+    /**
+     * Sets the specified {@link PermissionCatalog} of frequently checked permissions on <em>all</em> of the wrapped
+     * realms that implement the {@link PermissionCatalogAware} interface, so they answer checks for its
+     * {@link org.apache.shiro.authz.permission.PermissionKey PermissionKey}s with a single bit test.
+     *
+     * @param permissionCatalog the catalog to set on all the wrapped realms that implement the
+     *                          {@code PermissionCatalogAware} interface.
+     * @since 3.1.0
+     */
+    public void setPermissionCatalog(PermissionCatalog permissionCatalog) {
+        this.permissionCatalog = permissionCatalog;
+        applyPermissionCatalogToRealms();
+    }
+
+    /**
+     * Sets the internal {@link #getPermissionCatalog() permissionCatalog} on any internal configured
+     * {@link #getRealms() realms} that implement the {@link PermissionCatalogAware} interface.
+     *
+     * @since 3.1.0
+     */
+    protected void applyPermissionCatalogToRealms() {
+        PermissionCatalog catalog = getPermissionCatalog();
+        Collection<Realm> realms = getRealms();
+        if (catalog != null && realms != null && !realms.isEmpty()) {
+            for (Realm realm : realms) {
+                if (realm instanceof PermissionCatalogAware aware) {
+                    aware.setPermissionCatalog(catalog);
+                }
+            }
+        }
+    }
+
 
     /**
      * Used by the {@link Authorizer Authorizer} implementation methods to ensure that the {@link #setRealms realms}
@@ -223,7 +524,10 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean isPermitted(PrincipalCollection principals, String permission) {
         assertRealmsConfigured();
-        for (Realm realm : getRealms()) {
+        if (isParallelRealmEvaluationEnabled()) {
+            return anyRealmGrants(principals, realm -> realm.isPermitted(principals, permission));
+        }
+        for (Realm realm : getRealms(principals)) {
             if (!(realm instanceof Authorizer)) {
                 continue;
             }
@@ -241,7 +545,10 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean isPermitted(PrincipalCollection principals, Permission permission) {
         assertRealmsConfigured();
-        for (Realm realm : getRealms()) {
+        if (isParallelRealmEvaluationEnabled()) {
+            return anyRealmGrants(principals, realm -> realm.isPermitted(principals, permission));
+        }
+        for (Realm realm : getRealms(principals)) {
             if (!(realm instanceof Authorizer)) {
                 continue;
             }
@@ -259,33 +566,59 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean[] isPermitted(PrincipalCollection principals, String... permissions) {
         assertRealmsConfigured();
-        if (permissions != null && permissions.length > 0) {
-            boolean[] isPermitted = new boolean[permissions.length];
-            for (int i = 0; i < permissions.length; i++) {
+        boolean[] isPermitted = new boolean[permissions != null ? permissions.length : 0];
+        if (singleChecksOverridden) {
+            for (int i = 0; i < isPermitted.length; i++) {
                 isPermitted[i] = isPermitted(principals, permissions[i]);
             }
             return isPermitted;
         }
-        return new boolean[0];
+        if (isPermitted.length > 0 && isParallelRealmEvaluationEnabled()) {
+            return allRealmsGrant(principals, isPermitted, realm -> realm.isPermitted(principals, permissions));
+        }
+        if (isPermitted.length > 0) {
+            for (Realm realm : getRealms(principals)) {
+                if (!(realm instanceof Authorizer)) {
+                    continue;
+                }
+                if (grant(isPermitted, ((Authorizer) realm).isPermitted(principals, permissions))) {
+                    break;
+                }
+            }
+        }
+        return isPermitted;
     }
 
     /**
      * Returns <code>true</code> if any of the configured realms'
      * {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, List)} call returns <code>true</code>,
      * <code>false</code> otherwise.
+     * <p/>
+     * Each realm is consulted once for the entire list, not once per permission.
      */
     public boolean[] isPermitted(PrincipalCollection principals, List<Permission> permissions) {
         assertRealmsConfigured();
-        if (permissions != null && !permissions.isEmpty()) {
-            boolean[] isPermitted = new boolean[permissions.size()];
-            int i = 0;
-            for (Permission p : permissions) {
-                isPermitted[i++] = isPermitted(principals, p);
+        boolean[] isPermitted = new boolean[permissions != null ? permissions.size() : 0];
+        if (singleChecksOverridden) {
+            for (int i = 0; i < isPermitted.length; i++) {
+                isPermitted[i] = isPermitted(principals, permissions.get(i));
             }
             return isPermitted;
         }
-
-        return new boolean[0];
+        if (isPermitted.length > 0 && isParallelRealmEvaluationEnabled()) {
+            return allRealmsGrant(principals, isPermitted, realm -> realm.isPermitted(principals, permissions));
+        }
+        if (isPermitted.length > 0) {
+            for (Realm realm : getRealms(principals)) {
+                if (!(realm instanceof Authorizer)) {
+                    continue;
+                }
+                if (grant(isPermitted, ((Authorizer) realm).isPermitted(principals, permissions))) {
+                    break;
+                }
+            }
+        }
+        return isPermitted;
     }
 
     /**
@@ -295,14 +628,7 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean isPermittedAll(PrincipalCollection principals, String... permissions) {
         assertRealmsConfigured();
-        if (permissions != null && permissions.length > 0) {
-            for (String perm : permissions) {
-                if (!isPermitted(principals, perm)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return allTrue(isPermitted(principals, permissions));
     }
 
     /**
@@ -313,11 +639,7 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     public boolean isPermittedAll(PrincipalCollection principals, Collection<Permission> permissions) {
         assertRealmsConfigured();
         if (permissions != null && !permissions.isEmpty()) {
-            for (Permission permission : permissions) {
-                if (!isPermitted(principals, permission)) {
-                    return false;
-                }
-            }
+            return allTrue(isPermitted(principals, new ArrayList<Permission>(permissions)));
         }
         return true;
     }
@@ -379,7 +701,10 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean hasRole(PrincipalCollection principals, String roleIdentifier) {
         assertRealmsConfigured();
-        for (Realm realm : getRealms()) {
+        if (isParallelRealmEvaluationEnabled()) {
+            return anyRealmGrants(principals, realm -> realm.hasRole(principals, roleIdentifier));
+        }
+        for (Realm realm : getRealms(principals)) {
             if (!(realm instanceof Authorizer)) {
                 continue;
             }
@@ -391,21 +716,32 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     }
 
     /**
-     * Calls {@link #hasRole(org.apache.shiro.subject.PrincipalCollection, String)} for each role name in the specified
-     * collection and places the return value from each call at the respective location in the returned array.
+     * Calls each configured realm's {@link #hasRoles(org.apache.shiro.subject.PrincipalCollection, List)} once and
+     * places <code>true</code> at each location in the returned array where any realm granted the respective role.
      */
     public boolean[] hasRoles(PrincipalCollection principals, List<String> roleIdentifiers) {
         assertRealmsConfigured();
-        if (roleIdentifiers != null && !roleIdentifiers.isEmpty()) {
-            boolean[] hasRoles = new boolean[roleIdentifiers.size()];
-            int i = 0;
-            for (String roleId : roleIdentifiers) {
-                hasRoles[i++] = hasRole(principals, roleId);
+        boolean[] hasRoles = new boolean[roleIdentifiers != null ? roleIdentifiers.size() : 0];
+        if (singleChecksOverridden) {
+            for (int i = 0; i < hasRoles.length; i++) {
+                hasRoles[i] = hasRole(principals, roleIdentifiers.get(i));
             }
             return hasRoles;
         }
-
-        return new boolean[0];
+        if (hasRoles.length > 0 && isParallelRealmEvaluationEnabled()) {
+            return allRealmsGrant(principals, hasRoles, realm -> realm.hasRoles(principals, roleIdentifiers));
+        }
+        if (hasRoles.length > 0) {
+            for (Realm realm : getRealms(principals)) {
+                if (!(realm instanceof Authorizer)) {
+                    continue;
+                }
+                if (grant(hasRoles, ((Authorizer) realm).hasRoles(principals, roleIdentifiers))) {
+                    break;
+                }
+            }
+        }
+        return hasRoles;
     }
 
     /**
@@ -415,8 +751,204 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean hasAllRoles(PrincipalCollection principals, Collection<String> roleIdentifiers) {
         assertRealmsConfigured();
-        for (String roleIdentifier : roleIdentifiers) {
-            if (!hasRole(principals, roleIdentifier)) {
+        if (roleIdentifiers != null && !roleIdentifiers.isEmpty()) {
+            return allTrue(hasRoles(principals, new ArrayList<String>(roleIdentifiers)));
+        }
+        return true;
+    }
+
+    /**
+     * Asks each configured realm for its {@link Authorizer#getAuthorizationDecisions(PrincipalCollection, Collection,
+     * Collection) decisions} exactly once.  Permissions or roles granted by one realm are not passed on to the realms
+     * consulted after it, and realms are no longer consulted once everything has been granted.
+     *
+     * @since 3.1.0
+     */
+    @Override
+    public AuthorizationDecisions getAuthorizationDecisions(PrincipalCollection principals,
+                                                            Collection<String> permissions,
+                                                            Collection<String> roleIdentifiers) {
+        assertRealmsConfigured();
+        if (singleChecksOverridden) {
+            return Authorizer.super.getAuthorizationDecisions(principals, permissions, roleIdentifiers);
+        }
+        AuthorizationDecisions denied = AuthorizationDecisions.denyAll(permissions, roleIdentifiers);
+        if (isParallelRealmEvaluationEnabled()) {
+            return evaluateInParallel(principals,
+                    realm -> realm.getAuthorizationDecisions(principals, permissions, roleIdentifiers), denied,
+                    ModularRealmAuthorizer::grant, decisions -> decisions.isPermittedAll() && decisions.hasAllRoles());
+        }
+        Map<String, Boolean> permitted = new LinkedHashMap<>(denied.getPermissionDecisions());
+        Map<String, Boolean> hasRoles = new LinkedHashMap<>(denied.getRoleDecisions());
+        List<String> pendingPermissions = new ArrayList<>(permitted.keySet());
+        List<String> pendingRoles = new ArrayList<>(hasRoles.keySet());
+        for (Realm realm : getRealms(principals)) {
+            if (pendingPermissions.isEmpty() && pendingRoles.isEmpty()) {
+                break;
+            }
+            if (!(realm instanceof Authorizer)) {
+                continue;
+            }
+            AuthorizationDecisions decisions =
+                    ((Authorizer) realm).getAuthorizationDecisions(principals, pendingPermissions, pendingRoles);
+            pendingPermissions = grant(permitted, decisions.getPermissionDecisions());
+            pendingRoles = grant(hasRoles, decisions.getRoleDecisions());
+        }
+        return new AuthorizationDecisions(permitted, hasRoles);
+    }
+
+    /**
+     * Asks each configured realm to {@link Authorizer#filterPermitted(PrincipalCollection, String, Collection) filter}
+     * the instance ids exactly once.  Instances permitted by one realm are not passed on to the realms consulted after
+     * it, and realms are no longer consulted once all instances have been permitted.
+     *
+     * @since 3.1.0
+     */
+    @Override
+    public List<String> filterPermitted(PrincipalCollection principals, String permissionPrefix,
+                                        Collection<String> instanceIds) {
+        assertRealmsConfigured();
+        if (singleChecksOverridden) {
+            return Authorizer.super.filterPermitted(principals, permissionPrefix, instanceIds);
+        }
+        if (instanceIds == null || instanceIds.isEmpty()) {
+            return new ArrayList<String>();
+        }
+        Set<String> pending = new LinkedHashSet<String>(instanceIds);
+        Set<String> permitted;
+        if (isParallelRealmEvaluationEnabled()) {
+            int count = pending.size();
+            permitted = evaluateInParallel(principals,
+                    realm -> new HashSet<String>(realm.filterPermitted(principals, permissionPrefix, pending)),
+                    Collections.<String>emptySet(), (aggregate, realmPermitted) -> {
+                        Set<String> merged = new HashSet<String>(aggregate);
+                        merged.addAll(realmPermitted);
+                        return merged;
+                    }, result -> result.size() >= count);
+        } else {
+            permitted = new HashSet<String>();
+            for (Realm realm : getRealms(principals)) {
+                if (pending.isEmpty()) {
+                    break;
+                }
+                if (realm instanceof Authorizer) {
+                    List<String> realmPermitted =
+                            ((Authorizer) realm).filterPermitted(principals, permissionPrefix, new ArrayList<String>(pending));
+                    permitted.addAll(realmPermitted);
+                    pending.removeAll(realmPermitted);
+                }
+            }
+        }
+        List<String> filtered = new ArrayList<String>();
+        for (String instanceId : instanceIds) {
+            if (permitted.contains(instanceId)) {
+                filtered.add(instanceId);
+            }
+        }
+        return filtered;
+    }
+
+    private static boolean overridesSingleChecks(Class<?> type) {
+        try {
+            return type.getMethod("isPermitted", PrincipalCollection.class, String.class).getDeclaringClass()
+                    != ModularRealmAuthorizer.class
+                    || type.getMethod("isPermitted", PrincipalCollection.class, Permission.class).getDeclaringClass()
+                    != ModularRealmAuthorizer.class
+                    || type.getMethod("hasRole", PrincipalCollection.class, String.class).getDeclaringClass()
+                    != ModularRealmAuthorizer.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean anyRealmGrants(PrincipalCollection principals, Function<Authorizer, Boolean> check) {
+        return evaluateInParallel(principals, check, Boolean.FALSE, Boolean::logicalOr, Boolean::booleanValue);
+    }
+
+    private boolean[] allRealmsGrant(PrincipalCollection principals, boolean[] denied,
+                                     Function<Authorizer, boolean[]> check) {
+        return evaluateInParallel(principals, check, denied, (aggregate, realmResults) -> {
+            boolean[] merged = aggregate.clone();
+            grant(merged, realmResults);
+            return merged;
+        }, ModularRealmAuthorizer::allTrue);
+    }
+
+    private <R> R evaluateInParallel(PrincipalCollection principals, Function<Authorizer, R> check, R denied,
+                                     BinaryOperator<R> merge, Predicate<R> granted) {
+        List<Realm> authorizers = new ArrayList<>();
+        for (Realm realm : getRealms(principals)) {
+            if (realm instanceof Authorizer) {
+                authorizers.add(realm);
+            }
+        }
+        if (authorizers.isEmpty()) {
+            return denied;
+        }
+        return ParallelRealmEvaluation.evaluate(authorizers, check, denied, merge, granted,
+                getRealmEvaluationExecutor(), this::getRealmTimeout);
+    }
+
+    private long getRealmTimeout(Realm realm) {
+        Map<String, Long> timeouts = getRealmTimeouts();
+        Long timeout = timeouts != null && realm.getName() != null ? timeouts.get(realm.getName()) : null;
+        return timeout != null ? timeout : getRealmTimeout();
+    }
+
+    private static Long toMillis(Object realmName, Object timeout) {
+        if (timeout instanceof Number) {
+            return ((Number) timeout).longValue();
+        }
+        try {
+            return Long.valueOf(String.valueOf(timeout).trim());
+        } catch (NumberFormatException e) {
+            String msg = "Invalid timeout [" + timeout + "] for realm [" + realmName + "], expected milliseconds.";
+            throw new IllegalArgumentException(msg, e);
+        }
+    }
+
+    /**
+     * Returns decisions granting everything granted by either of the given decisions.
+     */
+    private static AuthorizationDecisions grant(AuthorizationDecisions aggregate, AuthorizationDecisions realm) {
+        Map<String, Boolean> permitted = new LinkedHashMap<>(aggregate.getPermissionDecisions());
+        Map<String, Boolean> hasRoles = new LinkedHashMap<>(aggregate.getRoleDecisions());
+        grant(permitted, realm.getPermissionDecisions());
+        grant(hasRoles, realm.getRoleDecisions());
+        return new AuthorizationDecisions(permitted, hasRoles);
+    }
+
+    /**
+     * ORs the realm's results into the aggregate results and returns whether everything is now granted.
+     */
+    private static boolean grant(boolean[] aggregate, boolean[] realmResults) {
+        boolean all = true;
+        for (int i = 0; i < aggregate.length; i++) {
+            aggregate[i] |= realmResults != null && i < realmResults.length && realmResults[i];
+            all &= aggregate[i];
+        }
+        return all;
+    }
+
+    /**
+     * Records the realm's grants in the aggregate decisions and returns the keys that are still denied.
+     */
+    private static List<String> grant(Map<String, Boolean> aggregate, Map<String, Boolean> realmDecisions) {
+        List<String> pending = new ArrayList<>();
+        for (Map.Entry<String, Boolean> entry : aggregate.entrySet()) {
+            if (!entry.getValue() && Boolean.TRUE.equals(realmDecisions.get(entry.getKey()))) {
+                entry.setValue(Boolean.TRUE);
+            }
+            if (!entry.getValue()) {
+                pending.add(entry.getKey());
+            }
+        }
+        return pending;
+    }
+
+    private static boolean allTrue(boolean[] results) {
+        for (boolean result : results) {
+            if (!result) {
                 return false;
             }
         }
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Evaluates an authorization check against several realms concurrently on behalf of the
+ * {@link ModularRealmAuthorizer}, combining the individual results as they arrive.
+ * <p/>
+ * Each realm is called on the executor with the calling thread's {@link Subject} (if any) bound, so realms relying
+ * on {@link org.apache.shiro.SecurityUtils#getSubject()} behave as they would when called sequentially.  Evaluation
+ * completes as soon as the combined result is fully granted, or once every realm has answered.  A realm that does
+ * not answer within its timeout contributes a denial and is interrupted, as are the realms still running once
+ * evaluation has completed; a realm that does not respond to interruption keeps running until it returns.  If nothing
+ * was granted and a realm failed, its exception is rethrown.
+ *
+ * @param <R> the result type of the check
+ * @since 3.1.0
+ */
+final class ParallelRealmEvaluation<R> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelRealmEvaluation.class);
+
+    private final CompletableFuture<R> outcome = new CompletableFuture<R>();
+    private final BinaryOperator<R> merge;
+    private final Predicate<R> granted;
+
+    private R result;
+    private int pending;
+    private Throwable failure;
+
+    private ParallelRealmEvaluation(R denied, BinaryOperator<R> merge, Predicate<R> granted, int realmCount) {
+        this.result = denied;
+        this.merge = merge;
+        this.granted = granted;
+        this.pending = realmCount;
+    }
+
+    /**
+     * Runs the check against each of the given realms, which must all implement {@link Authorizer}.
+     *
+     * @param realms   the realms to consult.
+     * @param check    the check to run against each realm.
+     * @param denied   the result representing a complete denial, also used for realms that time out.
+     * @param merge    combines two results, granting whatever either of them grants.
+     * @param granted  returns {@code true} if a result grants everything, which ends evaluation early.
+     * @param executor the executor to run the checks on, or {@code null} for the default executor.
+     * @param timeouts returns the timeout in milliseconds for a realm, {@code 0} or less for none.
+     * @param <R>      the result type of the check
+     * @return the combined result.
+     */
+    static <R> R evaluate(Collection<Realm> realms, Function<Authorizer, R> check, R denied, BinaryOperator<R> merge,
+                          Predicate<R> granted, Executor executor, ToLongFunction<Realm> timeouts) {
+        ParallelRealmEvaluation<R> evaluation = new ParallelRealmEvaluation<R>(denied, merge, granted, realms.size());
+        Subject subject = ThreadContext.getSubject();
+        Executor target = executor != null ? executor : DefaultExecutorHolder.EXECUTOR;
+        List<RealmTask<R>> tasks = new ArrayList<RealmTask<R>>(realms.size());
+        try {
+            for (Realm realm : realms) {
+                Callable<R> call = () -> check.apply((Authorizer) realm);
+                RealmTask<R> task = new RealmTask<R>(subject != null ? subject.associateWith(call) : call);
+                tasks.add(task);
+                CompletableFuture<R> result = task.result;
+                long timeout = timeouts.applyAsLong(realm);
+                if (timeout > 0) {
+                    result.orTimeout(timeout, TimeUnit.MILLISECONDS);
+                }
+                result.whenComplete((value, e) -> {
+                    if (e != null) {
+                        //interrupt a realm that timed out:
+                        task.cancel(true);
+                    }
+                    evaluation.complete(realm, value, e, denied);
+                });
+                target.execute(task);
+            }
+            return evaluation.await();
+        } finally {
+            for (RealmTask<R> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private synchronized void complete(Realm realm, R value, Throwable e, R denied) {
+        if (outcome.isDone()) {
+            return;
+        }
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException) {
+            LOGGER.warn("Realm [{}] did not answer within its timeout, treating it as a denial.", realm.getName());
+            value = denied;
+        } else if (cause != null) {
+            LOGGER.debug("Realm [{}] failed during parallel authorization.", realm.getName(), cause);
+            if (failure == null) {
+                failure = cause;
+            }
+            value = denied;
+        }
+        result = merge.apply(result, value);
+        pending--;
+        if (granted.test(result) || pending == 0) {
+            outcome.complete(result);
+        }
+    }
+
+    private R await() {
+        R value;
+        try {
+            value = outcome.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthorizationException("Interrupted while waiting for realms to authorize.", e);
+        } catch (ExecutionException e) {
+            throw new AuthorizationException(e.getCause());
+        }
+        synchronized (this) {
+            if (!granted.test(value) && failure != null) {
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw new AuthorizationException(failure);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * A realm call that can be interrupted by cancelling it, publishing its outcome to a {@code CompletableFuture}.
+     */
+    private static final class RealmTask<R> extends FutureTask<R> {
+
+        private final CompletableFuture<R> result = new CompletableFuture<R>();
+
+        private RealmTask(Callable<R> call) {
+            super(call);
+        }
+
+        @Override
+        protected void set(R value) {
+            super.set(value);
+            result.complete(value);
+        }
+
+        @Override
+        protected void setException(Throwable e) {
+            super.setException(e);
+            result.completeExceptionally(e);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                result.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Lazily created executor used when no executor has been configured: one virtual thread per task when running
+     * on a JVM that supports them, otherwise a cached pool of daemon threads.
+     */
+    private static final class DefaultExecutorHolder {
+
+        private static final ExecutorService EXECUTOR = createExecutor();
+
+        private static ExecutorService createExecutor() {
+            try {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) method.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.debug("Virtual threads are not available, using platform threads for parallel authorization.");
+                return Executors.newCachedThreadPool(r -> {
+                    Thread thread = new Thread(r, "shiro-parallel-authorization");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+}
@@ -18,8 +18,12 @@
  */
 package org.apache.shiro.authz.aop;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.shiro.aop.MethodInvocation;
 import org.apache.shiro.authz.AuthorizationException;
@@ -44,6 +48,11 @@ public abstract class AnnotationsAuthorizingMethodInterceptor extends Authorizin
      */
     protected Collection<AuthorizingAnnotationMethodInterceptor> methodInterceptors;
 
+    /**
+     * The interceptors supporting each invoked method, resolved against the current method interceptors.
+     */
+    private volatile InterceptorPlans plans;
+
     /**
      * Default no-argument constructor that defaults the
      * {@link #methodInterceptors methodInterceptors} attribute to contain two interceptors by default - the
@@ -83,6 +92,7 @@ public abstract class AnnotationsAuthorizingMethodInterceptor extends Authorizin
      */
     public void setMethodInterceptors(Collection<AuthorizingAnnotationMethodInterceptor> methodInterceptors) {
         this.methodInterceptors = methodInterceptors;
+        this.plans = null;
     }
 
     /**
@@ -92,16 +102,67 @@ public abstract class AnnotationsAuthorizingMethodInterceptor extends Authorizin
      * the invocation, that the interceptor
      * {@link AuthorizingAnnotationMethodInterceptor#assertAuthorized(org.apache.shiro.aop.MethodInvocation) asserts}
      * that the invocation is authorized to proceed.
+     * <p/>
+     * Which interceptors support a method is determined by the annotations on that method and its target class, so
+     * it is resolved on the first invocation and cached per method and target class; later invocations only call
+     * the supporting interceptors.  The cache is reset whenever the
+     * {@link #setMethodInterceptors(java.util.Collection) methodInterceptors} change.
      */
     protected void assertAuthorized(MethodInvocation methodInvocation) throws AuthorizationException {
         //default implementation just ensures no deny votes are cast:
         Collection<AuthorizingAnnotationMethodInterceptor> aamis = getMethodInterceptors();
         if (aamis != null && !aamis.isEmpty()) {
-            for (AuthorizingAnnotationMethodInterceptor aami : aamis) {
-                if (aami.supports(methodInvocation)) {
-                    aami.assertAuthorized(methodInvocation);
-                }
+            for (AuthorizingAnnotationMethodInterceptor aami : getSupportingInterceptors(methodInvocation, aamis)) {
+                aami.assertAuthorized(methodInvocation);
+            }
+        }
+    }
+
+    private List<AuthorizingAnnotationMethodInterceptor> getSupportingInterceptors(
+            MethodInvocation methodInvocation, Collection<AuthorizingAnnotationMethodInterceptor> aamis) {
+        Method method = methodInvocation != null ? methodInvocation.getMethod() : null;
+        if (method == null) {
+            return resolveSupportingInterceptors(methodInvocation, aamis);
+        }
+        InterceptorPlans current = plans;
+        if (current == null || current.source != aamis || current.size != aamis.size()) {
+            current = new InterceptorPlans(aamis);
+            plans = current;
+        }
+        Object target = methodInvocation.getThis();
+        Class<?> targetClass = target != null ? target.getClass() : method.getDeclaringClass();
+        return current.get(targetClass).computeIfAbsent(method,
+                m -> resolveSupportingInterceptors(methodInvocation, aamis));
+    }
+
+    private static List<AuthorizingAnnotationMethodInterceptor> resolveSupportingInterceptors(
+            MethodInvocation methodInvocation, Collection<AuthorizingAnnotationMethodInterceptor> aamis) {
+        List<AuthorizingAnnotationMethodInterceptor> supporting = new ArrayList<AuthorizingAnnotationMethodInterceptor>();
+        for (AuthorizingAnnotationMethodInterceptor aami : aamis) {
+            if (aami.supports(methodInvocation)) {
+                supporting.add(aami);
             }
         }
+        return supporting;
+    }
+
+    /**
+     * Supporting interceptors per target class and method, valid for one method interceptor collection.
+     */
+    private static final class InterceptorPlans extends ClassValue<Map<Method, List<AuthorizingAnnotationMethodInterceptor>>> {
+
+        private final Collection<AuthorizingAnnotationMethodInterceptor> source;
+
+        private final int size;
+
+        private InterceptorPlans(Collection<AuthorizingAnnotationMethodInterceptor> source) {
+            this.source = source;
+            this.size = source.size();
+        }
+
+        @Override
+        protected Map<Method, List<AuthorizingAnnotationMethodInterceptor>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Method, List<AuthorizingAnnotationMethodInterceptor>>();
+        }
     }
 }
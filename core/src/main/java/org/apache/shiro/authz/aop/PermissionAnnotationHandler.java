@@ -19,11 +19,17 @@
 package org.apache.shiro.authz.aop;
 
 import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.annotation.Logical;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.permission.PermissionResolver;
 import org.apache.shiro.subject.Subject;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Checks to see if a @{@link org.apache.shiro.authz.annotation.RequiresPermissions RequiresPermissions} annotation is
@@ -34,6 +40,17 @@ import java.lang.annotation.Annotation;
  */
 public class PermissionAnnotationHandler extends AuthorizingAnnotationHandler {
 
+    /**
+     * Resolves annotation permission strings once, or {@code null} to pass the strings to the {@code Subject}.
+     */
+    private PermissionResolver permissionResolver;
+
+    /**
+     * The permissions resolved so far, per annotation.
+     */
+    private final Map<Annotation, List<Permission>> resolvedPermissions =
+            new ConcurrentHashMap<Annotation, List<Permission>>();
+
     /**
      * Default no-argument constructor that ensures this handler looks for
      * {@link org.apache.shiro.authz.annotation.RequiresPermissions RequiresPermissions} annotations.
@@ -42,6 +59,33 @@ public class PermissionAnnotationHandler extends AuthorizingAnnotationHandler {
         super(RequiresPermissions.class);
     }
 
+    /**
+     * Returns the {@code PermissionResolver} used to convert annotation values into {@link Permission} instances
+     * once per annotation, or {@code null} (the default) if the permission strings are passed to the
+     * {@code Subject} on every check.
+     *
+     * @return the {@code PermissionResolver} used to pre-resolve annotation permissions, or {@code null}.
+     * @since 3.1.0
+     */
+    public PermissionResolver getPermissionResolver() {
+        return permissionResolver;
+    }
+
+    /**
+     * Sets the {@code PermissionResolver} used to convert annotation values into {@link Permission} instances
+     * once per annotation, so later checks skip parsing the permission strings.  Only set this when every realm
+     * resolves permission strings the same way as this resolver, since realms otherwise resolve the strings
+     * themselves.
+     *
+     * @param permissionResolver the {@code PermissionResolver} used to pre-resolve annotation permissions, or
+     *                           {@code null} to pass the permission strings to the {@code Subject}.
+     * @since 3.1.0
+     */
+    public void setPermissionResolver(PermissionResolver permissionResolver) {
+        this.permissionResolver = permissionResolver;
+        this.resolvedPermissions.clear();
+    }
+
     /**
      * Returns the annotation {@link RequiresPermissions#value value}, from which the Permission will be constructed.
      *
@@ -67,6 +111,11 @@ public class PermissionAnnotationHandler extends AuthorizingAnnotationHandler {
         }
 
         RequiresPermissions rpAnnotation = (RequiresPermissions) a;
+        PermissionResolver resolver = getPermissionResolver();
+        if (resolver != null) {
+            assertPermitted(getResolvedPermissions(a, resolver), rpAnnotation.logical());
+            return;
+        }
         String[] perms = getAnnotationValue(a);
         Subject subject = getSubject();
 
@@ -94,4 +143,30 @@ public class PermissionAnnotationHandler extends AuthorizingAnnotationHandler {
 
         }
     }
+
+    private List<Permission> getResolvedPermissions(Annotation a, PermissionResolver resolver) {
+        return resolvedPermissions.computeIfAbsent(a, annotation -> {
+            String[] perms = getAnnotationValue(annotation);
+            List<Permission> permissions = new ArrayList<Permission>(perms.length);
+            for (String perm : perms) {
+                permissions.add(resolver.resolvePermission(perm));
+            }
+            return permissions;
+        });
+    }
+
+    private void assertPermitted(List<Permission> permissions, Logical logical) throws AuthorizationException {
+        Subject subject = getSubject();
+        if (permissions.size() == 1 || Logical.AND.equals(logical)) {
+            subject.checkPermissions(permissions);
+            return;
+        }
+        for (Permission permission : permissions) {
+            if (subject.isPermitted(permission)) {
+                return;
+            }
+        }
+        // Cause the exception, note that the exception message will be a bit misleading
+        subject.checkPermission(permissions.get(0));
+    }
 }
@@ -0,0 +1,440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable, pre-resolved set of {@link Permission Permission}s granted to a single account.
+ * <p/>
+ * A {@code CompiledPermissions} instance is built once from an account's
+ * {@link org.apache.shiro.authz.AuthorizationInfo AuthorizationInfo} (after all string and role permissions have been
+ * resolved) so that subsequent authorization checks can reuse it directly instead of re-resolving and re-collecting
+ * the account's permissions on every call.
+ * <p/>
+ * Universal grants are detected while compiling: if the set contains an {@link AllPermission} every check is answered
+ * immediately, and if it contains a wildcard-only {@link WildcardPermission} (such as {@code *}) every check for a
+ * {@code WildcardPermission} is.
+ * <p/>
+ * An instance can also {@link #of(Collection, Collection) reference} other {@code CompiledPermissions}, such as the
+ * permissions of the account's roles, instead of copying them.  This allows role permissions to be compiled once and
+ * shared by every account holding the role.
+ * <p/>
+ * A copy {@link #precompute(PermissionCatalog) evaluated} against a {@link PermissionCatalog} answers checks for the
+ * catalog's {@link PermissionKey}s with a single bit test.  A copy can also {@link #memoizeDecisions(int) memoize}
+ * other decisions, so that repeated checks - in particular denials, which have to examine every permission - cost a
+ * single hash lookup.  Such copies share the compiled permissions of the instance they were created from, which
+ * itself remains unchanged and can therefore be shared safely.
+ *
+ * @see org.apache.shiro.realm.AuthorizingRealm#getPermissions(org.apache.shiro.authz.AuthorizationInfo)
+ * @since 3.1.0
+ */
+public final class CompiledPermissions extends AbstractSet<Permission> {
+
+    /**
+     * The minimum number of indexable permissions for which a {@link PermissionIndex} is built; for smaller sets a
+     * linear scan is at least as fast.
+     */
+    private static final int INDEX_THRESHOLD = 8;
+
+    private static final Permission[] NO_PERMISSIONS = new Permission[0];
+
+    private static final CompiledPermissions[] NO_SHARED = new CompiledPermissions[0];
+
+    private static final CompiledPermissions EMPTY =
+            new CompiledPermissions(Collections.<Permission>emptySet(), NO_SHARED);
+
+    /**
+     * The permissions owned by this instance, excluding those of the {@link #shared} instances.
+     */
+    private final Set<Permission> permissions;
+
+    /**
+     * The referenced instances whose permissions are also granted by this instance.
+     */
+    private final CompiledPermissions[] shared;
+
+    /**
+     * The union of the owned and shared permissions, built on first use by the {@code Set} methods.
+     */
+    private volatile Set<Permission> all;
+
+    /**
+     * The decisions for the keys of a permission catalog, or {@code null} if not precomputed.
+     */
+    private final CatalogDecisions catalogDecisions;
+
+    /**
+     * The memoized decisions of recent checks, or {@code null} if decisions are not memoized.
+     */
+    private final DecisionMemo decisionMemo;
+
+    /**
+     * Index of the indexable permissions, or {@code null} if there are too few of them to warrant an index.
+     */
+    private final PermissionIndex index;
+
+    /**
+     * The permissions that must be checked one by one, i.e. all permissions not contained in the {@link #index}.
+     */
+    private final Permission[] unindexed;
+
+    /**
+     * {@code true} if the permissions contain an {@link AllPermission}.
+     */
+    private final boolean allPermitted;
+
+    /**
+     * {@code true} if the permissions contain a {@code WildcardPermission} implying every other
+     * {@code WildcardPermission}.
+     */
+    private final boolean allWildcardsPermitted;
+
+    private CompiledPermissions(Set<Permission> permissions, CompiledPermissions[] shared) {
+        this.permissions = permissions;
+        this.shared = shared;
+        this.all = shared.length == 0 ? permissions : null;
+        this.catalogDecisions = null;
+        this.decisionMemo = null;
+
+        this.allPermitted = isAllPermitted(permissions, shared);
+        this.allWildcardsPermitted = isAllWildcardsPermitted(permissions, shared);
+
+        List<Permission> indexable = new ArrayList<Permission>();
+        for (Permission permission : permissions) {
+            if (PermissionIndex.isIndexable(permission)) {
+                indexable.add(permission);
+            }
+        }
+
+        if (indexable.size() >= INDEX_THRESHOLD) {
+            this.index = new PermissionIndex(indexable);
+            List<Permission> others = new ArrayList<Permission>(permissions.size() - indexable.size());
+            for (Permission permission : permissions) {
+                if (!PermissionIndex.isIndexable(permission)) {
+                    others.add(permission);
+                }
+            }
+            this.unindexed = others.toArray(NO_PERMISSIONS);
+        } else {
+            this.index = null;
+            this.unindexed = permissions.toArray(NO_PERMISSIONS);
+        }
+    }
+
+    /**
+     * Creates a copy of the specified instance, sharing its compiled permissions, with its own decisions.
+     */
+    private CompiledPermissions(CompiledPermissions source, CatalogDecisions catalogDecisions,
+                                DecisionMemo decisionMemo) {
+        this.permissions = source.permissions;
+        this.shared = source.shared;
+        this.all = source.all;
+        this.index = source.index;
+        this.unindexed = source.unindexed;
+        this.allPermitted = source.allPermitted;
+        this.allWildcardsPermitted = source.allWildcardsPermitted;
+        this.catalogDecisions = catalogDecisions;
+        this.decisionMemo = decisionMemo;
+    }
+
+    private static boolean isAllPermitted(Set<Permission> permissions, CompiledPermissions[] shared) {
+        for (Permission permission : permissions) {
+            if (permission.getClass() == AllPermission.class) {
+                return true;
+            }
+        }
+        for (CompiledPermissions compiled : shared) {
+            if (compiled.allPermitted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAllWildcardsPermitted(Set<Permission> permissions, CompiledPermissions[] shared) {
+        for (Permission permission : permissions) {
+            if (PermissionIndex.isIndexable(permission) && ((WildcardPermission) permission).isWildcardOnly()) {
+                return true;
+            }
+        }
+        for (CompiledPermissions compiled : shared) {
+            if (compiled.allWildcardsPermitted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an empty {@code CompiledPermissions} instance.
+     *
+     * @return an empty {@code CompiledPermissions} instance.
+     */
+    public static CompiledPermissions empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles the specified permissions into a new immutable {@code CompiledPermissions} instance.  Duplicate and
+     * {@code null} permissions are discarded.
+     *
+     * @param permissions the resolved permissions to compile, may be {@code null} or empty.
+     * @return a new {@code CompiledPermissions} instance reflecting the specified permissions.
+     */
+    public static CompiledPermissions of(Collection<? extends Permission> permissions) {
+        return of(permissions, null);
+    }
+
+    /**
+     * Compiles the specified permissions into a new immutable {@code CompiledPermissions} instance that also grants
+     * the permissions of the specified, already compiled instances.  The compiled instances are referenced rather
+     * than copied, so they can be shared between many accounts.  Duplicate and {@code null} permissions are
+     * discarded.
+     *
+     * @param permissions the resolved permissions to compile, may be {@code null} or empty.
+     * @param shared      the compiled permissions to reference, may be {@code null} or empty.
+     * @return a {@code CompiledPermissions} instance reflecting the specified permissions.
+     */
+    public static CompiledPermissions of(Collection<? extends Permission> permissions,
+                                         Collection<CompiledPermissions> shared) {
+        Set<Permission> set = new LinkedHashSet<Permission>();
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                if (permission != null) {
+                    set.add(permission);
+                }
+            }
+        }
+        List<CompiledPermissions> references = getReferences(shared);
+        if (set.isEmpty() && references.size() <= 1) {
+            return references.isEmpty() ? EMPTY : references.get(0);
+        }
+        return new CompiledPermissions(set.isEmpty() ? Collections.<Permission>emptySet()
+                : Collections.unmodifiableSet(set), references.toArray(NO_SHARED));
+    }
+
+    /**
+     * Returns {@code true} if any of the compiled permissions {@link Permission#implies(Permission) implies} the
+     * specified permission, {@code false} otherwise.  Universal grants are answered without examining the individual
+     * permissions.
+     *
+     * @param permission the permission to check.
+     * @return {@code true} if any of the compiled permissions implies the specified permission, {@code false}
+     * otherwise.
+     */
+    public boolean implies(Permission permission) {
+        if (permission instanceof PermissionKey key) {
+            CatalogDecisions decisions = catalogDecisions;
+            if (decisions != null && decisions.covers(key)) {
+                return decisions.isPermitted(key);
+            }
+        }
+        DecisionMemo memo = decisionMemo;
+        if (memo == null || permission == null) {
+            return impliesUncatalogued(permission);
+        }
+        Boolean decision = memo.get(permission);
+        if (decision == null) {
+            decision = impliesUncatalogued(permission);
+            memo.put(permission, decision);
+        }
+        return decision;
+    }
+
+    private boolean impliesUncatalogued(Permission permission) {
+        if (allPermitted || allWildcardsPermitted && permission instanceof WildcardPermission) {
+            return true;
+        }
+        if (index != null && index.implies(permission)) {
+            return true;
+        }
+        for (Permission perm : unindexed) {
+            if (perm.implies(permission)) {
+                return true;
+            }
+        }
+        for (CompiledPermissions compiled : shared) {
+            if (compiled.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a copy of these permissions evaluated against all permissions currently registered with the specified
+     * catalog, so that checks for the catalog's {@link PermissionKey}s are answered with a single bit test.  The copy
+     * replaces the decisions of any catalog this instance was evaluated against, but keeps its
+     * {@link #memoizeDecisions(int) memo}, if any.  Keys registered afterwards are checked as usual.  This instance is
+     * not changed.
+     *
+     * @param catalog the catalog to evaluate these permissions against, may be {@code null}.
+     * @return the evaluated copy, or this instance if {@code catalog} is {@code null}.
+     */
+    public CompiledPermissions precompute(PermissionCatalog catalog) {
+        if (catalog == null) {
+            return this;
+        }
+        PermissionKey[] keys = catalog.getKeys();
+        long[] bits = new long[(keys.length + Long.SIZE - 1) / Long.SIZE];
+        for (PermissionKey key : keys) {
+            if (impliesUncatalogued(key)) {
+                bits[key.getIndex() / Long.SIZE] |= 1L << key.getIndex();
+            }
+        }
+        return new CompiledPermissions(this, new CatalogDecisions(catalog, keys.length, bits), decisionMemo);
+    }
+
+    /**
+     * Returns a copy of these permissions that memoizes the decisions of up to {@code maxSize} distinct checked
+     * permissions, granted as well as denied, so that repeated checks cost a single hash lookup.  When the memo is
+     * full it is emptied before the next decision is memoized.  The copy keeps any
+     * {@link #precompute(PermissionCatalog) catalog decisions} of this instance, which is not changed.
+     * <p/>
+     * The memo belongs to the returned copy alone and is discarded along with it.  Callers should therefore hold the
+     * copy per account, as {@link org.apache.shiro.realm.AuthorizingRealm AuthorizingRealm} does for each cached
+     * {@code AuthorizationInfo}, rather than memoize decisions on an instance shared between accounts.
+     *
+     * @param maxSize the maximum number of memoized decisions, or {@code 0} to not memoize decisions.
+     * @return the memoizing copy, or this instance if {@code maxSize} is {@code 0} or less and no decisions are
+     * memoized by this instance.
+     */
+    public CompiledPermissions memoizeDecisions(int maxSize) {
+        if (maxSize <= 0 && decisionMemo == null) {
+            return this;
+        }
+        return new CompiledPermissions(this, catalogDecisions, maxSize > 0 ? new DecisionMemo(maxSize) : null);
+    }
+
+    @Override
+    public Iterator<Permission> iterator() {
+        return getAll().iterator();
+    }
+
+    @Override
+    public int size() {
+        return getAll().size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return getAll().contains(o);
+    }
+
+    private static List<CompiledPermissions> getReferences(Collection<CompiledPermissions> shared) {
+        List<CompiledPermissions> references = new ArrayList<CompiledPermissions>();
+        if (shared != null) {
+            for (CompiledPermissions compiled : shared) {
+                if (compiled != null && compiled.isGranting() && !containsInstance(references, compiled)) {
+                    references.add(compiled);
+                }
+            }
+        }
+        return references;
+    }
+
+    private static boolean containsInstance(List<CompiledPermissions> list, CompiledPermissions compiled) {
+        for (CompiledPermissions element : list) {
+            if (element == compiled) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isGranting() {
+        return !permissions.isEmpty() || shared.length > 0;
+    }
+
+    private Set<Permission> getAll() {
+        Set<Permission> union = all;
+        if (union == null) {
+            Set<Permission> set = new LinkedHashSet<Permission>(permissions);
+            for (CompiledPermissions compiled : shared) {
+                set.addAll(compiled);
+            }
+            union = Collections.unmodifiableSet(set);
+            all = union;
+        }
+        return union;
+    }
+
+    /**
+     * The decisions for the first {@code size} keys of a catalog, one bit per key.
+     */
+    private static final class CatalogDecisions {
+
+        private final PermissionCatalog catalog;
+
+        private final int size;
+
+        private final long[] bits;
+
+        private CatalogDecisions(PermissionCatalog catalog, int size, long[] bits) {
+            this.catalog = catalog;
+            this.size = size;
+            this.bits = bits;
+        }
+
+        private boolean covers(PermissionKey key) {
+            return key.getCatalog() == catalog && key.getIndex() < size;
+        }
+
+        private boolean isPermitted(PermissionKey key) {
+            return (bits[key.getIndex() / Long.SIZE] & (1L << key.getIndex())) != 0;
+        }
+    }
+
+    /**
+     * A bounded map of recent decisions, emptied when full.
+     */
+    private static final class DecisionMemo {
+
+        private final int maxSize;
+
+        private final Map<Permission, Boolean> decisions = new ConcurrentHashMap<Permission, Boolean>();
+
+        private DecisionMemo(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        private Boolean get(Permission permission) {
+            return decisions.get(permission);
+        }
+
+        private void put(Permission permission, Boolean decision) {
+            if (decisions.size() >= maxSize) {
+                decisions.clear();
+            }
+            decisions.put(permission, decision);
+        }
+    }
+}
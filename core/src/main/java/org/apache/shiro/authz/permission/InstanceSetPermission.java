@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.lang.util.StringUtils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link Permission} granting one or more actions on a (potentially very large) set of instances of a single
+ * domain, e.g. {@code document:read} on hundreds of thousands of document ids.
+ * <p/>
+ * It is equivalent to the {@link WildcardPermission} {@code domain:actions:id1,id2,...}, but stores the instance ids
+ * in a sorted array (a {@code long[]} if all ids are numeric) and checks them with a binary search, so
+ * {@link #implies(Permission) implies} runs in {@code O(log n)} and the permission takes far less memory than one
+ * {@code WildcardPermission} or {@link DomainPermission} per instance.  It implies any {@code WildcardPermission} of
+ * the form {@code domain:action[,action]:id[,id][:...]} whose actions and ids it grants, and can be returned from an
+ * {@link org.apache.shiro.authz.AuthorizationInfo#getObjectPermissions() AuthorizationInfo} like any other
+ * permission.  A {@code *} action grants all actions; ids are never matched by wildcards.
+ * <p/>
+ * Like {@code WildcardPermission}, instances are case-insensitive by default, in which case the domain, actions and
+ * ids are lower-cased.
+ *
+ * @since 3.1.0
+ */
+public class InstanceSetPermission implements Permission, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    /**
+     * The longest decimal number that is guaranteed to fit into a {@code long}.
+     */
+    private static final int MAX_NUMERIC_ID_LENGTH = 18;
+
+    private static final int IDS_PART = 2;
+
+    private final String domain;
+
+    /**
+     * The sorted, distinct actions.
+     */
+    private final String[] actions;
+
+    /**
+     * The sorted, distinct instance ids if all of them are numeric, otherwise {@code null}.
+     */
+    private final long[] numericIds;
+
+    /**
+     * The sorted, distinct instance ids if not all of them are numeric, otherwise {@code null}.
+     */
+    private final String[] ids;
+
+    public InstanceSetPermission(String domain, String actions, Collection<String> instanceIds) {
+        this(domain, actions, instanceIds, WildcardPermission.DEFAULT_CASE_SENSITIVE);
+    }
+
+    public InstanceSetPermission(String domain, String actions, Collection<String> instanceIds,
+                                 boolean caseSensitive) {
+        String cleanDomain = StringUtils.clean(domain);
+        Set<String> actionSet = StringUtils.splitToSet(actions, WildcardPermission.SUBPART_DIVIDER_TOKEN);
+        if (cleanDomain == null || actionSet == null || actionSet.isEmpty()) {
+            throw new IllegalArgumentException("domain and actions arguments cannot be null or empty.");
+        }
+        this.domain = caseSensitive ? cleanDomain : cleanDomain.toLowerCase();
+        this.actions = sortedTokens(actionSet, caseSensitive);
+
+        Set<String> idSet = new LinkedHashSet<String>();
+        if (instanceIds != null) {
+            for (String id : instanceIds) {
+                String cleanId = StringUtils.clean(id);
+                if (cleanId != null) {
+                    idSet.add(caseSensitive ? cleanId : cleanId.toLowerCase());
+                }
+            }
+        }
+        this.numericIds = toNumericIds(idSet);
+        this.ids = this.numericIds == null ? sortedTokens(idSet, true) : null;
+    }
+
+    private static String[] sortedTokens(Collection<String> tokens, boolean caseSensitive) {
+        Set<String> distinct = new LinkedHashSet<String>(tokens.size() * 4 / 3 + 1);
+        for (String token : tokens) {
+            distinct.add(caseSensitive ? token : token.toLowerCase());
+        }
+        String[] sorted = distinct.toArray(NO_TOKENS);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static long[] toNumericIds(Collection<String> ids) {
+        long[] numeric = new long[ids.size()];
+        int i = 0;
+        for (String id : ids) {
+            if (!isNumeric(id)) {
+                return null;
+            }
+            numeric[i++] = Long.parseLong(id);
+        }
+        Arrays.sort(numeric);
+        return numeric;
+    }
+
+    /**
+     * Returns {@code true} if the specified id is the canonical decimal representation of a {@code long}, i.e. if
+     * parsing and printing it again yields the same string.
+     */
+    private static boolean isNumeric(String id) {
+        int length = id.length();
+        if (length == 0 || length > MAX_NUMERIC_ID_LENGTH || id.charAt(0) == '0' && length > 1) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public Set<String> getActions() {
+        return Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(actions)));
+    }
+
+    /**
+     * Returns the number of instances this permission grants its actions on.
+     *
+     * @return the number of instances this permission grants its actions on.
+     */
+    public int getInstanceCount() {
+        return numericIds != null ? numericIds.length : ids.length;
+    }
+
+    /**
+     * Returns {@code true} if this permission grants its actions on the instance with the specified id.
+     *
+     * @param id the instance id to check.
+     * @return {@code true} if this permission grants its actions on the instance with the specified id.
+     */
+    public boolean containsInstance(String id) {
+        if (numericIds != null) {
+            return isNumeric(id) && Arrays.binarySearch(numericIds, Long.parseLong(id)) >= 0;
+        }
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    private boolean containsAction(String action) {
+        return Arrays.binarySearch(actions, action) >= 0
+                || Arrays.binarySearch(actions, WildcardPermission.WILDCARD_TOKEN) >= 0;
+    }
+
+    public boolean implies(Permission p) {
+        if (p instanceof InstanceSetPermission isp) {
+            return impliesInstances(isp);
+        }
+        if (!(p instanceof WildcardPermission wp)) {
+            return false;
+        }
+        String[][] parts = partsOf(wp);
+        //a permission on all instances of the domain (i.e. without an ids part) is never implied:
+        return parts.length > IDS_PART && impliesDomain(parts[0]) && impliesActions(parts[1])
+                && impliesIds(parts[IDS_PART]);
+    }
+
+    private boolean impliesDomain(String[] tokens) {
+        for (String token : tokens) {
+            if (!domain.equals(token)) {
+                return false;
+            }
+        }
+        return tokens.length > 0;
+    }
+
+    private boolean impliesActions(String[] tokens) {
+        for (String action : tokens) {
+            if (!containsAction(action)) {
+                return false;
+            }
+        }
+        return tokens.length > 0;
+    }
+
+    private boolean impliesIds(String[] tokens) {
+        for (String id : tokens) {
+            if (!containsInstance(id)) {
+                return false;
+            }
+        }
+        return tokens.length > 0;
+    }
+
+    private static String[][] partsOf(WildcardPermission wp) {
+        if (wp.hasDefaultParts()) {
+            String[][] parts = new String[Math.min(wp.partCount(), IDS_PART + 1)][];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = wp.partTokens(i);
+            }
+            return parts;
+        }
+        List<Set<String>> list = wp.getParts();
+        String[][] parts = new String[list.size()][];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = list.get(i).toArray(NO_TOKENS);
+        }
+        return parts;
+    }
+
+    private boolean impliesInstances(InstanceSetPermission other) {
+        if (!domain.equals(other.domain) || !impliesActions(other.actions)) {
+            return false;
+        }
+        if (other.numericIds != null) {
+            for (long id : other.numericIds) {
+                boolean contained = numericIds != null ? Arrays.binarySearch(numericIds, id) >= 0
+                        : containsInstance(Long.toString(id));
+                if (!contained) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return impliesIds(other.ids) || other.ids.length == 0;
+    }
+
+    public String toString() {
+        return domain + WildcardPermission.PART_DIVIDER_TOKEN + String.join(WildcardPermission.SUBPART_DIVIDER_TOKEN,
+                actions) + WildcardPermission.PART_DIVIDER_TOKEN + "[" + getInstanceCount() + " instances]";
+    }
+
+    public boolean equals(Object o) {
+        if (o instanceof InstanceSetPermission isp) {
+            return domain.equals(isp.domain) && Arrays.equals(actions, isp.actions)
+                    && Arrays.equals(numericIds, isp.numericIds) && Arrays.equals(ids, isp.ids);
+        }
+        return false;
+    }
+
+    public int hashCode() {
+        int result = domain.hashCode();
+        result = 31 * result + Arrays.hashCode(actions);
+        result = 31 * result + Arrays.hashCode(numericIds);
+        return 31 * result + Arrays.hashCode(ids);
+    }
+}
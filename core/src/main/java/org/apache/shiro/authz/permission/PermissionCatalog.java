@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.lang.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A catalog of the permissions an application checks most frequently, e.g. the few hundred permission strings found
+ * in its code.
+ * <p/>
+ * Each registered permission is assigned a {@link PermissionKey} handle.  A realm configured with the catalog (see
+ * {@link PermissionCatalogAware}) evaluates an account's permissions against all catalogued permissions once, when
+ * it compiles the account's permissions for its authorization cache, and then answers checks for a
+ * {@code PermissionKey} with a single bit test.  Permissions registered after an account's permissions were compiled,
+ * as well as all other permissions, are checked as usual.
+ * <p/>
+ * Registered permissions are never removed.  Instances are thread-safe.
+ *
+ * @see PermissionKey
+ * @since 3.1.0
+ */
+public final class PermissionCatalog {
+
+    private static final PermissionKey[] NO_KEYS = new PermissionKey[0];
+
+    private final boolean caseSensitive;
+
+    private final Map<String, PermissionKey> keysByPermission = new ConcurrentHashMap<String, PermissionKey>();
+
+    /**
+     * All keys, ordered by index.
+     */
+    private volatile PermissionKey[] keys = NO_KEYS;
+
+    public PermissionCatalog() {
+        this(WildcardPermission.DEFAULT_CASE_SENSITIVE);
+    }
+
+    public PermissionCatalog(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    /**
+     * Returns the key of the specified permission, registering the permission if not already registered.
+     *
+     * @param permission the String representation of a {@link WildcardPermission}.
+     * @return the key of the specified permission.
+     */
+    public PermissionKey register(String permission) {
+        String clean = StringUtils.clean(permission);
+        if (clean == null) {
+            throw new IllegalArgumentException("permission argument cannot be null or empty.");
+        }
+        PermissionKey key = keysByPermission.get(clean);
+        if (key != null) {
+            return key;
+        }
+        synchronized (this) {
+            key = keysByPermission.get(clean);
+            if (key == null) {
+                PermissionKey[] current = this.keys;
+                key = new PermissionKey(this, current.length, clean, caseSensitive);
+                PermissionKey[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = key;
+                this.keys = grown;
+                keysByPermission.put(clean, key);
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Returns the key of the specified permission, or {@code null} if it is not registered.
+     *
+     * @param permission the String representation of the permission as it was registered.
+     * @return the key of the specified permission, or {@code null} if it is not registered.
+     */
+    public PermissionKey getKey(String permission) {
+        String clean = StringUtils.clean(permission);
+        return clean != null ? keysByPermission.get(clean) : null;
+    }
+
+    /**
+     * Returns the registered permissions in their normalized {@link WildcardPermission#toString() String} form, in the
+     * order of registration.
+     *
+     * @return the registered permissions, in the order of registration.
+     */
+    public List<String> getPermissions() {
+        List<String> permissions = new ArrayList<String>();
+        for (PermissionKey key : keys) {
+            permissions.add(key.toString());
+        }
+        return permissions;
+    }
+
+    /**
+     * Registers all specified permissions, e.g. when configuring the catalog in {@code shiro.ini}.
+     *
+     * @param permissions the String representations of the permissions to register.
+     */
+    public void setPermissions(Collection<String> permissions) {
+        if (permissions != null) {
+            for (String permission : permissions) {
+                register(permission);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of registered permissions.
+     *
+     * @return the number of registered permissions.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns a snapshot of all keys, ordered by index.
+     */
+    PermissionKey[] getKeys() {
+        return keys;
+    }
+}
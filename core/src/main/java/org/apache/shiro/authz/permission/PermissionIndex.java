@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A prefix tree (trie) over the parts of a collection of {@link WildcardPermission}s that answers
+ * {@link #implies(Permission) implication} queries in time proportional to the number of parts of the queried
+ * permission instead of the number of indexed permissions.
+ * <p/>
+ * Each level of the tree corresponds to a permission part.  A part containing the
+ * {@link WildcardPermission#WILDCARD_TOKEN wildcard token} is stored in a dedicated wildcard branch, single-token parts
+ * are stored in a hash map keyed by their token and parts with multiple comma-delimited subparts are stored by their
+ * subpart tokens.  Querying a permission therefore only follows the branches that could possibly imply it, yielding
+ * exactly the same result as calling {@link WildcardPermission#implies(Permission)} on each indexed permission.
+ * <p/>
+ * Only permissions that are {@link #isIndexable(Permission) indexable} are added to the index, i.e.
+ * {@code WildcardPermission}s (and subclasses such as {@link DomainPermission}) that do not override the
+ * {@code WildcardPermission} implication logic.  Instances are immutable once constructed.
+ *
+ * @since 3.1.0
+ */
+public final class PermissionIndex {
+
+    private static final ClassValue<Boolean> INDEXABLE_TYPES = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != null && c != WildcardPermission.class; c = c.getSuperclass()) {
+                for (Method method : c.getDeclaredMethods()) {
+                    String name = method.getName();
+                    if (("implies".equals(name) && method.getParameterCount() == 1)
+                            || ("getParts".equals(name) && method.getParameterCount() == 0)) {
+                        return Boolean.FALSE;
+                    }
+                }
+            }
+            return Boolean.TRUE;
+        }
+    };
+
+    private final Node root = new Node();
+
+    private final int size;
+
+    /**
+     * Creates a new index containing all {@link #isIndexable(Permission) indexable} permissions in the specified
+     * collection.  All other permissions are ignored.
+     *
+     * @param permissions the permissions to index.
+     */
+    public PermissionIndex(Collection<? extends Permission> permissions) {
+        int count = 0;
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                if (isIndexable(permission)) {
+                    add((WildcardPermission) permission);
+                    count++;
+                }
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * Returns {@code true} if the specified permission can be stored in a {@code PermissionIndex}, {@code false}
+     * otherwise.  A permission is indexable if it is a {@link WildcardPermission} whose class does not override
+     * {@code implies} or {@code getParts}, and whose parts have not been exposed as a modifiable list via
+     * {@code getParts} or {@code setParts(List)}.
+     *
+     * @param permission the permission to check.
+     * @return {@code true} if the specified permission can be stored in a {@code PermissionIndex}.
+     */
+    public static boolean isIndexable(Permission permission) {
+        return permission instanceof WildcardPermission wp && INDEXABLE_TYPES.get(permission.getClass())
+                && wp.hasDefaultParts();
+    }
+
+    /**
+     * Returns the number of permissions that were added to this index.
+     *
+     * @return the number of permissions that were added to this index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if any indexed permission implies the specified permission, {@code false} otherwise.
+     * As with {@link WildcardPermission#implies(Permission)}, only {@code WildcardPermission} instances can be implied.
+     *
+     * @param permission the permission to check.
+     * @return {@code true} if any indexed permission implies the specified permission, {@code false} otherwise.
+     */
+    public boolean implies(Permission permission) {
+        if (size == 0 || !(permission instanceof WildcardPermission)) {
+            return false;
+        }
+        WildcardPermission wp = (WildcardPermission) permission;
+        if (!wp.hasDefaultParts()) {
+            //the parts are provided by a subclass or modifiable, so look up a plain copy of them instead:
+            wp = WildcardPermission.copyOf(wp.getParts());
+        }
+        return root.implies(wp, 0);
+    }
+
+    private void add(WildcardPermission permission) {
+        Node node = root;
+        for (int i = 0; i < permission.partCount(); i++) {
+            node = permission.isWildcardPart(i) ? node.wildcardChild() : node.child(permission.partTokens(i));
+        }
+        node.terminal = true;
+    }
+
+    private static final class Node {
+
+        private Map<String, Node> tokens;
+
+        private List<SubpartsEntry> subparts;
+
+        private Node wildcard;
+
+        private boolean terminal;
+
+        Node wildcardChild() {
+            if (wildcard == null) {
+                wildcard = new Node();
+            }
+            return wildcard;
+        }
+
+        Node child(String[] part) {
+            if (part.length == 1) {
+                if (tokens == null) {
+                    tokens = new HashMap<String, Node>();
+                }
+                return tokens.computeIfAbsent(part[0], k -> new Node());
+            }
+            if (subparts == null) {
+                subparts = new ArrayList<SubpartsEntry>();
+            }
+            for (SubpartsEntry entry : subparts) {
+                if (entry.subparts.length == part.length && WildcardPermission.containsAllTokens(entry.subparts, part)) {
+                    return entry.node;
+                }
+            }
+            SubpartsEntry entry = new SubpartsEntry(part, new Node());
+            subparts.add(entry);
+            return entry.node;
+        }
+
+        boolean implies(WildcardPermission permission, int index) {
+            if (terminal) {
+                //an indexed permission ends here, so all remaining parts (if any) are implied:
+                return true;
+            }
+            if (index == permission.partCount()) {
+                //the queried permission ends here, so only indexed permissions with wildcard remainders imply it:
+                return wildcard != null && wildcard.impliesEmptyRemainder();
+            }
+            if (wildcard != null && wildcard.implies(permission, index + 1)) {
+                return true;
+            }
+            String[] part = permission.partTokens(index);
+            return (part.length == 1 && tokenImplies(part[0], permission, index))
+                    || subpartsImply(part, permission, index);
+        }
+
+        private boolean tokenImplies(String token, WildcardPermission permission, int index) {
+            Node child = tokens != null ? tokens.get(token) : null;
+            return child != null && child.implies(permission, index + 1);
+        }
+
+        private boolean subpartsImply(String[] part, WildcardPermission permission, int index) {
+            if (subparts != null) {
+                for (SubpartsEntry entry : subparts) {
+                    if (WildcardPermission.containsAllTokens(entry.subparts, part)
+                            && entry.node.implies(permission, index + 1)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean impliesEmptyRemainder() {
+            return terminal || (wildcard != null && wildcard.impliesEmptyRemainder());
+        }
+    }
+
+    private static final class SubpartsEntry {
+
+        private final String[] subparts;
+
+        private final Node node;
+
+        SubpartsEntry(String[] subparts, Node node) {
+            this.subparts = subparts;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import java.io.Serial;
+
+/**
+ * A precompiled handle for a frequently checked permission, obtained from a {@link PermissionCatalog}.
+ * <p/>
+ * A {@code PermissionKey} is a regular {@link WildcardPermission} and can be passed to any permission check, e.g.
+ * {@link org.apache.shiro.subject.Subject#isPermitted(org.apache.shiro.authz.Permission) Subject.isPermitted}.  Realms
+ * that have evaluated an account's permissions against the key's catalog answer such checks with a single bit test,
+ * all others check it like any other {@code WildcardPermission}.
+ *
+ * @see PermissionCatalog
+ * @since 3.1.0
+ */
+public final class PermissionKey extends WildcardPermission {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The catalog this key was registered with, not retained when serialized.
+     */
+    private final transient PermissionCatalog catalog;
+
+    private final int index;
+
+    PermissionKey(PermissionCatalog catalog, int index, String permission, boolean caseSensitive) {
+        super(permission, caseSensitive);
+        this.catalog = catalog;
+        this.index = index;
+    }
+
+    /**
+     * Returns the catalog this key was registered with, or {@code null} if this key was deserialized.
+     *
+     * @return the catalog this key was registered with, or {@code null} if this key was deserialized.
+     */
+    public PermissionCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns the position of this key within its {@link #getCatalog() catalog}.
+     *
+     * @return the position of this key within its catalog.
+     */
+    public int getIndex() {
+        return index;
+    }
+}
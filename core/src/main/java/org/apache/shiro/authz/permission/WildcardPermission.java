@@ -19,13 +19,21 @@
 package org.apache.shiro.authz.permission;
 
 import org.apache.shiro.authz.Permission;
-import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.lang.util.StringUtils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -100,6 +108,12 @@ import java.util.Set;
  * There is no limit to the number of tokens that can be used, so it is up to your imagination in terms of ways that
  * this could be used in your application.  However, the Shiro team likes to standardize some common usages shown
  * above to help people get started and provide consistency in the Shiro community.
+ * <h3>Internal Representation</h3>
+ * Internally, each part is stored as a small array of tokens together with a precomputed wildcard flag, so that
+ * {@link #implies(Permission) implication checks} between two {@code WildcardPermission}s neither allocate nor
+ * iterate over hash sets.  The serialized form is unchanged.  Once the parts of a permission have been exposed as
+ * a modifiable list, via {@link #getParts()} or {@link #setParts(List)}, that list is evaluated instead, so that
+ * changes made to it remain effective.
  *
  * @since 0.9
  */
@@ -113,10 +127,64 @@ public class WildcardPermission implements Permission, Serializable {
     protected static final String SUBPART_DIVIDER_TOKEN = ",";
     protected static final boolean DEFAULT_CASE_SENSITIVE = false;
 
+    //the value computed for the original List<Set<String>> based implementation, which defines the serialized form:
+    @Serial
+    private static final long serialVersionUID = 8500703358315979658L;
+
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("parts", List.class)
+    };
+
+    private static final int MASK_BITS = Long.SIZE;
+
+    private static final int HASH_MULTIPLIER = 31;
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    /**
+     * Classes for which {@link #getParts()} is not overridden, i.e. for which the internal tokens are authoritative.
+     */
+    private static final ClassValue<Boolean> DEFAULT_PARTS_TYPES = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != null && c != WildcardPermission.class; c = c.getSuperclass()) {
+                for (Method method : c.getDeclaredMethods()) {
+                    if ("getParts".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return Boolean.FALSE;
+                    }
+                }
+            }
+            return Boolean.TRUE;
+        }
+    };
+
     /*--------------------------------------------
     |    I N S T A N C E   V A R I A B L E S    |
     ============================================*/
-    private List<Set<String>> parts;
+    /**
+     * The de-duplicated tokens of each part, in their original order.
+     */
+    private transient String[][] parts;
+
+    /**
+     * Bit {@code i} is set if part {@code i} contains the {@link #WILDCARD_TOKEN}.  Parts beyond the first
+     * {@value #MASK_BITS} are checked by scanning their tokens.
+     */
+    private transient long wildcardMask;
+
+    /**
+     * Same value as {@code List<Set<String>>.hashCode()} of the parts, to retain the original hash code semantics.
+     */
+    private transient int hash;
+
+    private transient boolean defaultParts;
+
+    /**
+     * The parts as returned by {@link #getParts()}: the list given to {@link #setParts(List)}, or created on first
+     * access.  If not {@code null}, this list rather than the token arrays defines this permission.
+     */
+    private transient volatile List<Set<String>> partsList;
 
     /*--------------------------------------------
     |         C O N S T R U C T O R S           |
@@ -158,40 +226,204 @@ public class WildcardPermission implements Permission, Serializable {
             wildcardString = wildcardString.toLowerCase();
         }
 
-        List<String> parts = CollectionUtils.asList(wildcardString.split(PART_DIVIDER_TOKEN));
+        String[] partStrings = wildcardString.split(PART_DIVIDER_TOKEN);
 
-        this.parts = new ArrayList<Set<String>>();
-        for (String part : parts) {
-            Set<String> subparts = CollectionUtils.asSet(part.split(SUBPART_DIVIDER_TOKEN));
+        String[][] tokens = new String[partStrings.length][];
+        for (int i = 0; i < partStrings.length; i++) {
+            String[] subparts = partStrings[i].split(SUBPART_DIVIDER_TOKEN);
 
-            if (subparts.isEmpty()) {
+            if (subparts.length == 0) {
                 throw new IllegalArgumentException("Wildcard string cannot contain parts with only dividers."
                         + "Make sure permission strings are properly formatted.");
             }
-            this.parts.add(subparts);
+            tokens[i] = distinctTokens(subparts);
         }
 
-        if (this.parts.isEmpty()) {
+        if (tokens.length == 0) {
             throw new IllegalArgumentException("Wildcard string cannot contain only dividers."
                         + "Make sure permission strings are properly formatted.");
         }
+
+        initParts(tokens);
     }
 
     /*--------------------------------------------
     |  A C C E S S O R S / M O D I F I E R S    |
     ============================================*/
+
+    /**
+     * Returns the parts of this permission, each part being the set of its comma-delimited subparts.  This is the
+     * list last given to {@link #setParts(List)}, or, for parts set from a wildcard String, a list created on first
+     * access; the same instance is returned on each invocation.
+     * <p/>
+     * The returned list and its sets are the live parts of this permission: changes made to them are reflected by
+     * {@link #implies(Permission) implies}, {@code equals}, {@code hashCode} and {@code toString}.  Permissions whose
+     * parts have been obtained this way are evaluated from the list instead of the compact internal representation.
+     *
+     * @return the parts of this permission.
+     */
     protected List<Set<String>> getParts() {
-        return this.parts;
+        List<Set<String>> list = this.partsList;
+        if (list == null && this.parts != null) {
+            list = tokensAsList(this.parts);
+            this.partsList = list;
+        }
+        return list;
     }
 
     /**
      * Sets the pre-split String parts of this <code>WildcardPermission</code>.
+     * <p/>
+     * The given list is returned by {@link #getParts()} and, like that list, remains the live parts of this
+     * permission: changes made to it after this call are reflected by this permission.
      *
      * @param parts pre-split String parts.
      * @since 1.3.0
      */
     protected void setParts(List<Set<String>> parts) {
-        this.parts = parts;
+        this.parts = null;
+        this.wildcardMask = 0;
+        this.hash = 0;
+        this.defaultParts = DEFAULT_PARTS_TYPES.get(getClass());
+        this.partsList = parts;
+    }
+
+    /**
+     * Returns a permission with the specified parts in the compact internal representation, i.e. a copy that is not
+     * affected by later changes to {@code parts}.
+     */
+    static WildcardPermission copyOf(List<Set<String>> parts) {
+        WildcardPermission copy = new WildcardPermission();
+        String[][] tokens = new String[parts.size()][];
+        int i = 0;
+        for (Set<String> part : parts) {
+            tokens[i++] = distinctTokens(part.toArray(NO_TOKENS));
+        }
+        copy.initParts(tokens);
+        return copy;
+    }
+
+    /**
+     * Returns the current parts without exposing them: the live list if there is one, otherwise a new list created
+     * from the tokens.
+     */
+    private List<Set<String>> currentParts() {
+        List<Set<String>> list = this.partsList;
+        return list != null || this.parts == null ? list : tokensAsList(this.parts);
+    }
+
+    private static List<Set<String>> tokensAsList(String[][] tokens) {
+        List<Set<String>> list = new ArrayList<Set<String>>(tokens.length);
+        for (String[] part : tokens) {
+            list.add(new LinkedHashSet<String>(Arrays.asList(part)));
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of parts of this permission.
+     */
+    int partCount() {
+        return parts.length;
+    }
+
+    /**
+     * Returns the (shared, not to be modified) tokens of the part at the specified index.
+     */
+    String[] partTokens(int index) {
+        return parts[index];
+    }
+
+    /**
+     * Returns {@code true} if the part at the specified index contains the {@link #WILDCARD_TOKEN}.
+     */
+    boolean isWildcardPart(int index) {
+        if (index < MASK_BITS) {
+            return (wildcardMask & (1L << index)) != 0;
+        }
+        return containsToken(parts[index], WILDCARD_TOKEN);
+    }
+
+    /**
+     * Returns {@code true} if every part of this instance is a wildcard part (e.g. {@code *} or {@code *:*}), i.e. if
+     * it implies every other {@code WildcardPermission}.
+     */
+    boolean isWildcardOnly() {
+        if (!hasDefaultParts()) {
+            return false;
+        }
+        for (int i = 0; i < parts.length; i++) {
+            if (!isWildcardPart(i)) {
+                return false;
+            }
+        }
+        return parts.length > 0;
+    }
+
+    /**
+     * Returns {@code true} if the internal tokens of this instance reflect its {@link #getParts() parts}, i.e. if
+     * {@code getParts()} has not been overridden by a subclass and the parts have not been exposed as a modifiable
+     * list.
+     */
+    boolean hasDefaultParts() {
+        return defaultParts && partsList == null;
+    }
+
+    private void initParts(String[][] tokens) {
+        long mask = 0;
+        int h = 1;
+        for (int i = 0; i < tokens.length; i++) {
+            String[] part = tokens[i];
+            if (i < MASK_BITS && containsToken(part, WILDCARD_TOKEN)) {
+                mask |= 1L << i;
+            }
+            int partHash = 0;
+            for (String token : part) {
+                partHash += token.hashCode();
+            }
+            h = HASH_MULTIPLIER * h + partHash;
+        }
+        this.parts = tokens;
+        this.wildcardMask = mask;
+        this.hash = h;
+        this.defaultParts = DEFAULT_PARTS_TYPES.get(getClass());
+        this.partsList = null;
+    }
+
+    /**
+     * De-duplicates the specified tokens, retaining their original order.
+     */
+    private static String[] distinctTokens(String[] tokens) {
+        String[] distinct = new String[tokens.length];
+        int count = 0;
+        for (String token : tokens) {
+            if (!containsToken(distinct, count, token)) {
+                distinct[count++] = token;
+            }
+        }
+        return count == distinct.length ? distinct : Arrays.copyOf(distinct, count);
+    }
+
+    private static boolean containsToken(String[] tokens, String token) {
+        return containsToken(tokens, tokens.length, token);
+    }
+
+    private static boolean containsToken(String[] tokens, int length, String token) {
+        for (int i = 0; i < length; i++) {
+            if (Objects.equals(tokens[i], token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean containsAllTokens(String[] tokens, String[] others) {
+        for (String other : others) {
+            if (!containsToken(tokens, other)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /*--------------------------------------------
@@ -206,16 +438,48 @@ public class WildcardPermission implements Permission, Serializable {
 
         WildcardPermission wp = (WildcardPermission) p;
 
-        List<Set<String>> otherParts = wp.getParts();
+        if (!hasDefaultParts() || !wp.hasDefaultParts()) {
+            return impliesParts(wp.defaultParts ? wp.currentParts() : wp.getParts());
+        }
+
+        String[][] thisParts = this.parts;
+        String[][] otherParts = wp.parts;
 
         int i = 0;
-        for (Set<String> otherPart : otherParts) {
+        for (; i < otherParts.length; i++) {
             // If this permission has less parts than the other permission, everything after the number of parts contained
             // in this permission is automatically implied, so return true
-            if (getParts().size() - 1 < i) {
+            if (i >= thisParts.length) {
+                return true;
+            }
+            if (!isWildcardPart(i) && !containsAllTokens(thisParts[i], otherParts[i])) {
+                return false;
+            }
+        }
+
+        // If this permission has more parts than the other parts, only imply it if all of the other parts are wildcards
+        for (; i < thisParts.length; i++) {
+            if (!isWildcardPart(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The original {@code getParts()} based implication logic, retained for subclasses that override
+     * {@link #getParts()} and for parts exposed as a modifiable list.
+     */
+    private boolean impliesParts(List<Set<String>> otherParts) {
+        List<Set<String>> thisParts = defaultParts ? currentParts() : getParts();
+
+        int i = 0;
+        for (Set<String> otherPart : otherParts) {
+            if (thisParts.size() - 1 < i) {
                 return true;
             } else {
-                Set<String> part = getParts().get(i);
+                Set<String> part = thisParts.get(i);
                 if (!part.contains(WILDCARD_TOKEN) && !part.containsAll(otherPart)) {
                     return false;
                 }
@@ -223,9 +487,8 @@ public class WildcardPermission implements Permission, Serializable {
             }
         }
 
-        // If this permission has more parts than the other parts, only imply it if all of the other parts are wildcards
-        for (; i < getParts().size(); i++) {
-            Set<String> part = getParts().get(i);
+        for (; i < thisParts.size(); i++) {
+            Set<String> part = thisParts.get(i);
             if (!part.contains(WILDCARD_TOKEN)) {
                 return false;
             }
@@ -235,6 +498,26 @@ public class WildcardPermission implements Permission, Serializable {
     }
 
     public String toString() {
+        List<Set<String>> list = this.partsList;
+        if (list != null) {
+            return toString(list);
+        }
+        StringBuilder buffer = new StringBuilder();
+        for (String[] part : parts) {
+            if (buffer.length() > 0) {
+                buffer.append(PART_DIVIDER_TOKEN);
+            }
+            for (int i = 0; i < part.length; i++) {
+                if (i > 0) {
+                    buffer.append(SUBPART_DIVIDER_TOKEN);
+                }
+                buffer.append(part[i]);
+            }
+        }
+        return buffer.toString();
+    }
+
+    private static String toString(List<Set<String>> parts) {
         StringBuilder buffer = new StringBuilder();
         for (Set<String> part : parts) {
             if (buffer.length() > 0) {
@@ -253,13 +536,59 @@ public class WildcardPermission implements Permission, Serializable {
 
     public boolean equals(Object o) {
         if (o instanceof WildcardPermission wp) {
-            return parts.equals(wp.parts);
+            if (partsList != null || wp.partsList != null) {
+                return Objects.equals(currentParts(), wp.currentParts());
+            }
+            if (hash != wp.hash) {
+                return false;
+            }
+            String[][] thisParts = this.parts;
+            String[][] otherParts = wp.parts;
+            if (thisParts == null || otherParts == null) {
+                return thisParts == otherParts;
+            }
+            if (thisParts.length != otherParts.length) {
+                return false;
+            }
+            for (int i = 0; i < thisParts.length; i++) {
+                //tokens are de-duplicated, so equal lengths plus containment means set equality:
+                if (thisParts[i].length != otherParts[i].length || !containsAllTokens(thisParts[i], otherParts[i])) {
+                    return false;
+                }
+            }
+            return true;
         }
         return false;
     }
 
     public int hashCode() {
-        return parts.hashCode();
+        List<Set<String>> list = this.partsList;
+        return list != null ? list.hashCode() : hash;
     }
 
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        //retain the original serialized form (a List of Sets) for compatibility:
+        List<Set<String>> serializedParts = currentParts();
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("parts", serializedParts);
+        out.writeFields();
+    }
+
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        List<Set<String>> serializedParts = (List<Set<String>>) fields.get("parts", null);
+        if (serializedParts != null) {
+            String[][] tokens = new String[serializedParts.size()][];
+            int i = 0;
+            for (Set<String> part : serializedParts) {
+                tokens[i++] = distinctTokens(part.toArray(NO_TOKENS));
+            }
+            initParts(tokens);
+        } else {
+            this.defaultParts = DEFAULT_PARTS_TYPES.get(getClass());
+        }
+    }
 }
@@ -20,16 +20,40 @@ package org.apache.shiro.authz.permission;
 
 import org.apache.shiro.authz.Permission;
 
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <tt>PermissionResolver</tt> implementation that returns a new {@link WildcardPermission WildcardPermission}
  * based on the input string.
+ * <h3>Permission Cache</h3>
+ * Because applications usually check the same (relatively small) set of permission strings over and over again, this
+ * resolver can optionally cache the permissions it resolves, so that each distinct permission string is only parsed
+ * once.  The cache is disabled by default and is enabled by setting a positive
+ * {@link #setPermissionCacheSize(int) permissionCacheSize}, for example in {@code shiro.ini}:
+ * <pre>
+ * permissionResolver = org.apache.shiro.authz.permission.WildcardPermissionResolver
+ * permissionResolver.permissionCacheSize = 1000
+ * securityManager.authorizer.permissionResolver = $permissionResolver
+ * </pre>
+ * Once the cache is full, an arbitrary entry is evicted for each newly resolved permission string.  Cache
+ * effectiveness can be monitored via {@link #getPermissionCacheHits()} and {@link #getPermissionCacheMisses()}.
  *
  * @since 0.9
  */
 public class WildcardPermissionResolver implements PermissionResolver {
     boolean caseSensitive;
 
+    private volatile int permissionCacheSize;
+
+    private final ConcurrentMap<String, Permission> permissionCache = new ConcurrentHashMap<String, Permission>();
+
+    private final LongAdder permissionCacheHits = new LongAdder();
+
+    private final LongAdder permissionCacheMisses = new LongAdder();
+
     /**
      * Constructor to specify case sensitivity for the resolved permissions.
      *
@@ -56,6 +80,7 @@ public class WildcardPermissionResolver implements PermissionResolver {
      */
     public void setCaseSensitive(boolean state) {
         this.caseSensitive = state;
+        this.permissionCache.clear();
     }
 
     /**
@@ -68,14 +93,96 @@ public class WildcardPermissionResolver implements PermissionResolver {
     }
 
     /**
-     * Returns a new {@link WildcardPermission WildcardPermission} instance constructed based on the specified
-     * <tt>permissionString</tt>.
+     * Returns the maximum number of resolved permissions that will be cached by this resolver, or {@code 0} (the
+     * default) if resolved permissions are not cached.
+     *
+     * @return the maximum number of resolved permissions that will be cached by this resolver.
+     * @since 3.1.0
+     */
+    public int getPermissionCacheSize() {
+        return permissionCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of resolved permissions that will be cached by this resolver.  A value of {@code 0} or
+     * less (the default) disables caching.
+     *
+     * @param permissionCacheSize the maximum number of resolved permissions that will be cached by this resolver.
+     * @since 3.1.0
+     */
+    public void setPermissionCacheSize(int permissionCacheSize) {
+        this.permissionCacheSize = Math.max(permissionCacheSize, 0);
+        if (this.permissionCacheSize == 0) {
+            this.permissionCache.clear();
+        }
+    }
+
+    /**
+     * Returns the number of {@link #resolvePermission(String) resolvePermission} calls that were answered from the
+     * permission cache.
+     *
+     * @return the number of permission cache hits.
+     * @since 3.1.0
+     */
+    public long getPermissionCacheHits() {
+        return permissionCacheHits.sum();
+    }
+
+    /**
+     * Returns the number of {@link #resolvePermission(String) resolvePermission} calls that had to parse their
+     * permission string while the permission cache was enabled.
+     *
+     * @return the number of permission cache misses.
+     * @since 3.1.0
+     */
+    public long getPermissionCacheMisses() {
+        return permissionCacheMisses.sum();
+    }
+
+    /**
+     * Removes all entries from the permission cache.
+     *
+     * @since 3.1.0
+     */
+    public void clearPermissionCache() {
+        this.permissionCache.clear();
+    }
+
+    /**
+     * Returns a {@link WildcardPermission WildcardPermission} instance constructed based on the specified
+     * <tt>permissionString</tt>.  If the {@link #setPermissionCacheSize(int) permission cache} is enabled, a previously
+     * resolved (immutable) instance may be returned for the same permission string.
      *
      * @param permissionString the permission string to convert to a {@link Permission Permission} instance.
-     * @return a new {@link WildcardPermission WildcardPermission} instance constructed based on the specified
+     * @return a {@link WildcardPermission WildcardPermission} instance constructed based on the specified
      * <tt>permissionString</tt>
      */
     public Permission resolvePermission(String permissionString) {
-        return new WildcardPermission(permissionString, caseSensitive);
+        int maxSize = this.permissionCacheSize;
+        if (maxSize <= 0 || permissionString == null) {
+            return new WildcardPermission(permissionString, caseSensitive);
+        }
+
+        Permission permission = permissionCache.get(permissionString);
+        if (permission != null) {
+            permissionCacheHits.increment();
+            return permission;
+        }
+
+        permissionCacheMisses.increment();
+        permission = new WildcardPermission(permissionString, caseSensitive);
+        if (permissionCache.size() >= maxSize) {
+            evictPermission();
+        }
+        permissionCache.put(permissionString, permission);
+        return permission;
+    }
+
+    private void evictPermission() {
+        Iterator<String> keys = permissionCache.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
     }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.shiro.mgt;
 
+import org.apache.shiro.authz.AuthorizationDecisions;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.Authorizer;
 import org.apache.shiro.authz.ModularRealmAuthorizer;
@@ -162,6 +163,19 @@ public abstract class AuthorizingSecurityManager extends AuthenticatingSecurityM
         return this.authorizer.hasAllRoles(principals, roleIdentifiers);
     }
 
+    @Override
+    public AuthorizationDecisions getAuthorizationDecisions(PrincipalCollection principals,
+                                                            Collection<String> permissions,
+                                                            Collection<String> roleIdentifiers) {
+        return this.authorizer.getAuthorizationDecisions(principals, permissions, roleIdentifiers);
+    }
+
+    @Override
+    public List<String> filterPermitted(PrincipalCollection principals, String permissionPrefix,
+                                        Collection<String> instanceIds) {
+        return this.authorizer.filterPermitted(principals, permissionPrefix, instanceIds);
+    }
+
     public void checkRole(PrincipalCollection principals, String role) throws AuthorizationException {
         this.authorizer.checkRole(principals, role);
     }
@@ -124,6 +124,8 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
      */
     private static final String DEFAULT_AUTHENTICATION_CACHE_SUFFIX = ".authenticationCache";
 
+    private static final int DEFAULT_VERIFIED_CREDENTIALS_CACHE_SIZE = 10000;
+
     /**
      * Simulated authentication info, should only be set once to avoid wasting useless CPU cycles.
      */
@@ -141,6 +143,25 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
     private boolean authenticationCachingEnabled;
     private String authenticationCacheName;
 
+    /**
+     * Coalesces concurrent AuthenticationInfo lookups for the same cache key.  Failures are not shared, since a
+     * lookup may depend on the submitted credentials (e.g. an LDAP bind), not just on the cache key.
+     */
+    private final SingleFlight<Object, AuthenticationInfo> authenticationLoads =
+            new SingleFlight<Object, AuthenticationInfo>(false);
+
+    /**
+     * Time-to-live and refresh-ahead bookkeeping for cached AuthenticationInfo instances.
+     */
+    private final CacheEntryExpiration<AuthenticationInfo> authenticationExpiration =
+            new CacheEntryExpiration<AuthenticationInfo>();
+
+    /**
+     * Recently verified credentials, used to skip the credentials matcher for repeated identical attempts.
+     */
+    private final VerifiedCredentialsCache verifiedCredentials =
+            new VerifiedCredentialsCache(DEFAULT_VERIFIED_CREDENTIALS_CACHE_SIZE);
+
     /**
      * The class that this realm supports for authentication tokens.  This is used by the
      * default implementation of the {@link Realm#supports(org.apache.shiro.authc.AuthenticationToken)} method to
@@ -345,6 +366,119 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
         }
     }
 
+    /**
+     * Returns the number of milliseconds a cached {@code AuthenticationInfo} may be used after it was loaded, or
+     * {@code 0} (the default) if cached entries live until they are evicted by the cache or
+     * {@link #clearCachedAuthenticationInfo(PrincipalCollection) cleared}.
+     *
+     * @return the time-to-live of cached authentication entries in milliseconds, {@code 0} if unbounded.
+     * @since 3.1.0
+     */
+    public long getAuthenticationCacheTimeToLive() {
+        return authenticationExpiration.getTimeToLive();
+    }
+
+    /**
+     * Sets the number of milliseconds a cached {@code AuthenticationInfo} may be used after it was loaded.  Once
+     * exceeded, the next authentication attempt reloads it via {@link #doGetAuthenticationInfo(AuthenticationToken)}.
+     * A value of {@code 0} or less disables expiration.
+     * <p/>
+     * Expiration is tracked per cache key by this realm instance, so entries put into a shared cache by other nodes
+     * start aging when this realm first sees them.
+     *
+     * @param authenticationCacheTimeToLive the time-to-live of cached authentication entries in milliseconds.
+     * @since 3.1.0
+     */
+    public void setAuthenticationCacheTimeToLive(long authenticationCacheTimeToLive) {
+        authenticationExpiration.setTimeToLive(authenticationCacheTimeToLive);
+    }
+
+    /**
+     * Returns the number of milliseconds before a cached {@code AuthenticationInfo} expires during which it is
+     * reloaded in the background, or {@code 0} (the default) if entries are only reloaded once they have expired.
+     *
+     * @return the refresh-ahead window of cached authentication entries in milliseconds.
+     * @since 3.1.0
+     */
+    public long getAuthenticationCacheRefreshAhead() {
+        return authenticationExpiration.getRefreshAhead();
+    }
+
+    /**
+     * Sets the number of milliseconds before a cached {@code AuthenticationInfo} expires during which it is
+     * reloaded in the background.  A successful authentication that used an entry within this window triggers a
+     * reload on the {@link #getCacheRefreshExecutor() cacheRefreshExecutor}, while the current attempt proceeds with
+     * the cached entry.  Only takes effect if an
+     * {@link #setAuthenticationCacheTimeToLive(long) authenticationCacheTimeToLive} is set.
+     * <p/>
+     * The reload is performed with the token returned by {@link #getRefreshAuthenticationToken(AuthenticationToken)},
+     * which never carries the submitted credentials.
+     *
+     * @param authenticationCacheRefreshAhead the refresh-ahead window of cached authentication entries in
+     *                                        milliseconds.
+     * @since 3.1.0
+     */
+    public void setAuthenticationCacheRefreshAhead(long authenticationCacheRefreshAhead) {
+        authenticationExpiration.setRefreshAhead(authenticationCacheRefreshAhead);
+    }
+
+    /**
+     * Returns the number of milliseconds a successful credentials verification is remembered, or {@code 0} (the
+     * default) if every authentication attempt is verified by the {@link #getCredentialsMatcher() credentialsMatcher}.
+     *
+     * @return the time-to-live of remembered credentials verifications in milliseconds, {@code 0} if disabled.
+     * @see #setVerifiedCredentialsCacheTimeToLive(long)
+     * @since 3.1.0
+     */
+    public long getVerifiedCredentialsCacheTimeToLive() {
+        return verifiedCredentials.getTimeToLive();
+    }
+
+    /**
+     * Sets the number of milliseconds a successful credentials verification is remembered.  While remembered, an
+     * authentication attempt with the same principal and the same credentials against the same stored account
+     * credentials succeeds without calling the {@link #getCredentialsMatcher() credentialsMatcher}, which avoids
+     * repeating an expensive password hash for stateless clients that authenticate on every request (e.g. HTTP Basic).
+     * Concurrent attempts with the same credentials are verified only once.  A value of {@code 0} or less (the
+     * default) disables this.
+     * <p/>
+     * Verifications are remembered under an HMAC of the principal, the submitted and the stored credentials, keyed
+     * with a random per-realm secret, so no credentials are retained.  Changing an account's stored credentials
+     * therefore invalidates its entries, as does
+     * {@link #clearCachedAuthenticationInfo(PrincipalCollection) clearing} its cached authentication data.  Only
+     * {@code byte[]}, {@code char[]}, {@code String} and {@code ByteSource} credentials are remembered.
+     * <p/>
+     * <b>WARNING:</b> a remembered verification is honored even if the account is locked or disabled by means other
+     * than changing its credentials or clearing its cache, so keep this value short.
+     *
+     * @param verifiedCredentialsCacheTimeToLive the time-to-live of remembered verifications in milliseconds.
+     * @since 3.1.0
+     */
+    public void setVerifiedCredentialsCacheTimeToLive(long verifiedCredentialsCacheTimeToLive) {
+        verifiedCredentials.setTimeToLive(verifiedCredentialsCacheTimeToLive);
+    }
+
+    /**
+     * Returns the maximum number of remembered credentials verifications, {@code 10000} by default.
+     *
+     * @return the maximum number of remembered credentials verifications.
+     * @since 3.1.0
+     */
+    public int getVerifiedCredentialsCacheSize() {
+        return verifiedCredentials.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of remembered credentials verifications.  Once reached, all remembered verifications
+     * are discarded.
+     *
+     * @param verifiedCredentialsCacheSize the maximum number of remembered credentials verifications.
+     * @since 3.1.0
+     */
+    public void setVerifiedCredentialsCacheSize(int verifiedCredentialsCacheSize) {
+        verifiedCredentials.setMaxSize(verifiedCredentialsCacheSize);
+    }
+
     public void setName(String name) {
         super.setName(name);
         String authcCacheName = this.authenticationCacheName;
@@ -493,6 +627,9 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
             info = cache.get(key);
             if (info == null) {
                 LOGGER.trace("No AuthenticationInfo found in cache for key [{}]", key);
+            } else if (authenticationExpiration.isExpired(key)) {
+                LOGGER.trace("Cached AuthenticationInfo for key [{}] has expired.", key);
+                info = null;
             } else {
                 LOGGER.trace("Found cached AuthenticationInfo for key [{}]", key);
             }
@@ -521,6 +658,7 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
         if (cache != null) {
             Object key = getAuthenticationCacheKey(token);
             cache.put(key, info);
+            authenticationExpiration.loaded(key, cache);
             LOGGER.trace("Cached AuthenticationInfo for continued authentication.  key=[{}], value=[{}].", key, info);
         }
     }
@@ -554,7 +692,9 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
      * {@link #doGetAuthenticationInfo(org.apache.shiro.authc.AuthenticationToken)} method to perform the actual
      * lookup.  If authentication caching is enabled and possible, any returned info object will be
      * {@link #cacheAuthenticationInfoIfPossible(AuthenticationToken, AuthenticationInfo) cached}
-     * to be used in future authentication attempts.</li>
+     * to be used in future authentication attempts.  While a cache is available, concurrent lookups for the same
+     * cache key are coalesced into a single {@code doGetAuthenticationInfo} call whose result is shared.  If that
+     * call fails, its failure is not shared: each waiting attempt performs a lookup with its own token.</li>
      * <li>If an AuthenticationInfo instance is not found in the cache or by lookup, {@code null} is returned to
      * indicate an account cannot be found.</li>
      * <li>If an AuthenticationInfo instance is found (either cached or via lookup), ensure the submitted
@@ -571,19 +711,25 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
     public final AuthenticationInfo getAuthenticationInfo(AuthenticationToken token) throws AuthenticationException {
 
         AuthenticationInfo info = getCachedAuthenticationInfo(token);
+        boolean cached = false;
         if (info == null) {
             //otherwise not cached, perform the lookup:
-            info = doGetAuthenticationInfo(token);
-            LOGGER.debug("Looked up AuthenticationInfo [{}] from doGetAuthenticationInfo", info);
-            if (token != null && info != null) {
-                cacheAuthenticationInfoIfPossible(token, info);
+            if (token != null && getAvailableAuthenticationCache() != null) {
+                //only one caller per cache key queries the data source, concurrent callers share its result:
+                info = authenticationLoads.load(getAuthenticationCacheKey(token), () -> loadAuthenticationInfo(token));
+            } else {
+                info = loadAuthenticationInfo(token);
             }
         } else {
             LOGGER.debug("Using cached authentication info [{}] to perform credentials matching.", info);
+            cached = true;
         }
 
         if (info != null) {
             assertCredentialsMatch(token, info);
+            if (cached) {
+                refreshIfDue(token);
+            }
         } else {
             simulateFailedLogin(token);
         }
@@ -591,6 +737,57 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
         return info;
     }
 
+    /**
+     * Reloads the cached entry of a token with matching credentials in the background if it is due for a refresh.
+     */
+    private void refreshIfDue(AuthenticationToken token) {
+        if (!authenticationExpiration.isRefreshAheadEnabled()) {
+            return;
+        }
+        Object key = getAuthenticationCacheKey(token);
+        if (!authenticationExpiration.isRefreshDue(key)) {
+            return;
+        }
+        AuthenticationToken refreshToken = getRefreshAuthenticationToken(token);
+        if (refreshToken != null) {
+            authenticationExpiration.refresh(key, getAvailableCacheRefreshExecutor(),
+                    () -> authenticationLoads.load(key, () -> loadAuthenticationInfo(refreshToken)));
+        }
+    }
+
+    /**
+     * Returns the token passed to {@link #doGetAuthenticationInfo(AuthenticationToken)} when a cached entry is
+     * reloaded in the background ahead of its {@link #setAuthenticationCacheRefreshAhead(long) expiration}, or
+     * {@code null} if the entry should not be refreshed in the background and simply expire instead.
+     * <p/>
+     * Background reloads may happen long after the authentication attempt, so the returned token must not retain the
+     * submitted credentials.  The default implementation returns a copy of a {@link UsernamePasswordToken} without
+     * its password, and {@code null} for any other token type.  Subclasses working with other token types, whose
+     * {@code doGetAuthenticationInfo} implementation only needs the principal, may override this method.
+     *
+     * @param token the token of the authentication attempt that used the cached entry, whose credentials have been
+     *              verified.
+     * @return a token without credentials to reload the cached entry with, or {@code null} to skip the refresh.
+     * @since 3.1.0
+     */
+    protected AuthenticationToken getRefreshAuthenticationToken(AuthenticationToken token) {
+        if (token == null || token.getClass() != UsernamePasswordToken.class) {
+            return null;
+        }
+        UsernamePasswordToken upToken = (UsernamePasswordToken) token;
+        return new UsernamePasswordToken(upToken.getUsername(), (char[]) null, upToken.isRememberMe(),
+                upToken.getHost());
+    }
+
+    private AuthenticationInfo loadAuthenticationInfo(AuthenticationToken token) {
+        AuthenticationInfo info = doGetAuthenticationInfo(token);
+        LOGGER.debug("Looked up AuthenticationInfo [{}] from doGetAuthenticationInfo", info);
+        if (token != null && info != null) {
+            cacheAuthenticationInfoIfPossible(token, info);
+        }
+        return info;
+    }
+
     private void simulateFailedLogin(AuthenticationToken token) {
         try {
             AuthenticationInfo simulated = ensureSimulatedAuthenticationInfo();
@@ -628,13 +825,20 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
     /**
      * Asserts that the submitted {@code AuthenticationToken}'s credentials match the stored account
      * {@code AuthenticationInfo}'s credentials, and if not, throws an {@link AuthenticationException}.
+     * <p/>
+     * If a {@link #setVerifiedCredentialsCacheTimeToLive(long) verifiedCredentialsCacheTimeToLive} is set, a recent
+     * successful verification of the same credentials is honored without consulting the credentials matcher.
      *
      * @param token the submitted authentication token
      * @param info  the AuthenticationInfo corresponding to the given {@code token}
      * @throws AuthenticationException if the token's credentials do not match the stored account credentials.
      */
     protected void assertCredentialsMatch(AuthenticationToken token, AuthenticationInfo info) throws AuthenticationException {
-        if (!assertCredentialsMatchWithoutException(token, info)) {
+        boolean matched = verifiedCredentials.isEnabled()
+                ? verifiedCredentials.verify(getAuthenticationCacheKey(token), token, info,
+                        () -> assertCredentialsMatchWithoutException(token, info))
+                : assertCredentialsMatchWithoutException(token, info);
+        if (!matched) {
             //not successful - throw an exception to indicate this:
             String msg = "Submitted credentials for token [" + token + "] did not match the expected credentials.";
             throw new IncorrectCredentialsException(msg);
@@ -722,6 +926,10 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
             if (cache != null) {
                 Object key = getAuthenticationCacheKey(principals);
                 cache.remove(key);
+                authenticationExpiration.forget(key);
+            }
+            if (verifiedCredentials.size() > 0) {
+                verifiedCredentials.clear(getAuthenticationCacheKey(principals));
             }
         }
     }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm;
+
+import org.apache.shiro.authz.Permission;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reverse index of the roles and permissions granted to the accounts of a realm, answering which accounts hold a role
+ * or permission without looking up the authorization data of every account.
+ * <p/>
+ * Permissions are indexed by their distinct instances, so a permission query examines each distinct granted
+ * permission once rather than each account's permissions.  Accounts are updated individually via
+ * {@link #put(String, Collection, Collection) put} and {@link #remove(String) remove}.
+ *
+ * @since 3.1.0
+ */
+final class AuthorizationIndex {
+
+    private final Map<String, Set<String>> usernamesByRole = new HashMap<String, Set<String>>();
+
+    private final Map<Permission, Set<String>> usernamesByPermission = new HashMap<Permission, Set<String>>();
+
+    private final Map<String, Set<String>> rolesByUsername = new HashMap<String, Set<String>>();
+
+    private final Map<String, Set<Permission>> permissionsByUsername = new HashMap<String, Set<Permission>>();
+
+    /**
+     * Indexes the roles and permissions of the specified account, replacing those previously indexed for it.
+     */
+    synchronized void put(String username, Collection<String> roles, Collection<Permission> permissions) {
+        remove(username);
+        Set<String> roleSet = new LinkedHashSet<String>();
+        if (roles != null) {
+            for (String role : roles) {
+                if (role != null && roleSet.add(role)) {
+                    usernamesByRole.computeIfAbsent(role, r -> new LinkedHashSet<String>()).add(username);
+                }
+            }
+        }
+        Set<Permission> permissionSet = new LinkedHashSet<Permission>();
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                if (permission != null && permissionSet.add(permission)) {
+                    usernamesByPermission.computeIfAbsent(permission, p -> new LinkedHashSet<String>()).add(username);
+                }
+            }
+        }
+        rolesByUsername.put(username, roleSet);
+        permissionsByUsername.put(username, permissionSet);
+    }
+
+    /**
+     * Removes the specified account from the index.
+     */
+    synchronized void remove(String username) {
+        Set<String> roles = rolesByUsername.remove(username);
+        if (roles != null) {
+            for (String role : roles) {
+                removeFrom(usernamesByRole, role, username);
+            }
+        }
+        Set<Permission> permissions = permissionsByUsername.remove(username);
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                removeFrom(usernamesByPermission, permission, username);
+            }
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<String>> index, K key, String username) {
+        Set<String> usernames = index.get(key);
+        if (usernames != null) {
+            usernames.remove(username);
+            if (usernames.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the usernames of all accounts holding the specified role.
+     */
+    synchronized Set<String> getUsernamesWithRole(String role) {
+        Set<String> usernames = usernamesByRole.get(role);
+        return usernames != null ? new LinkedHashSet<String>(usernames) : Collections.<String>emptySet();
+    }
+
+    /**
+     * Returns the usernames of all accounts holding a permission that implies the specified permission.
+     */
+    synchronized Set<String> getUsernamesPermitted(Permission permission) {
+        Set<String> usernames = new LinkedHashSet<String>();
+        for (Map.Entry<Permission, Set<String>> entry : usernamesByPermission.entrySet()) {
+            if (entry.getKey().implies(permission)) {
+                usernames.addAll(entry.getValue());
+            }
+        }
+        return usernames;
+    }
+}
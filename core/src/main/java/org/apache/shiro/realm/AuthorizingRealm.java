@@ -19,11 +19,16 @@
 package org.apache.shiro.realm;
 
 import org.apache.shiro.authc.credential.CredentialsMatcher;
+import org.apache.shiro.authz.AuthorizationDecisions;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.Authorizer;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.permission.CompiledPermissions;
+import org.apache.shiro.authz.permission.PermissionCatalog;
+import org.apache.shiro.authz.permission.PermissionCatalogAware;
+import org.apache.shiro.authz.permission.PermissionKey;
 import org.apache.shiro.authz.permission.PermissionResolver;
 import org.apache.shiro.authz.permission.PermissionResolverAware;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
@@ -38,15 +43,22 @@ import org.apache.shiro.lang.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * An {@code AuthorizingRealm} extends the {@code AuthenticatingRealm}'s capabilities by adding Authorization
@@ -70,7 +82,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 @SuppressWarnings({"checkstyle:MethodCount"})
 public abstract class AuthorizingRealm extends AuthenticatingRealm
-        implements Authorizer, Initializable, PermissionResolverAware, RolePermissionResolverAware {
+        implements Authorizer, Initializable, PermissionResolverAware, RolePermissionResolverAware,
+        PermissionCatalogAware {
 
     /*-------------------------------------------
     |             C O N S T A N T S             |
@@ -84,6 +97,13 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
 
+    private static final String PART_DIVIDER_TOKEN = ":";
+
+    /**
+     * Number of permission compilations between two purges of compiled permissions of evicted cache entries.
+     */
+    private static final int COMPILED_PERMISSIONS_PURGE_INTERVAL = 256;
+
     /*-------------------------------------------
     |    I N S T A N C E   V A R I A B L E S    |
     ============================================*/
@@ -98,6 +118,52 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     private RolePermissionResolver permissionRoleResolver;
 
+    /**
+     * The resolved permissions of cached AuthorizationInfo instances by authorization cache key, so they are only
+     * compiled once per cache entry, even if the cache returns a copy of the entry on every lookup.
+     */
+    private final Map<Object, CompiledEntry> compiledPermissions = new ConcurrentHashMap<Object, CompiledEntry>();
+
+    /**
+     * The authorization cache key of each AuthorizationInfo instance handed out by
+     * {@link #getAuthorizationInfo(PrincipalCollection)}, used to find its compiled permissions.
+     */
+    private final WeakIdentityMap<AuthorizationInfo, Object> authorizationCacheKeys =
+            new WeakIdentityMap<AuthorizationInfo, Object>();
+
+    private final AtomicInteger compilationsSincePurge = new AtomicInteger();
+
+    private boolean rolePermissionResolverCachingEnabled;
+
+    private int parallelFilterThreshold;
+
+    private PermissionCatalog permissionCatalog;
+
+    private int authorizationDecisionMemoSize;
+
+    /**
+     * The compiled permissions of each role, shared by all accounts holding the role.
+     */
+    private final Map<String, CompiledPermissions> rolePermissions = new ConcurrentHashMap<String, CompiledPermissions>();
+
+    /**
+     * Coalesces concurrent AuthorizationInfo lookups for the same cache key.
+     */
+    private final SingleFlight<Object, AuthorizationInfo> authorizationLoads =
+            new SingleFlight<Object, AuthorizationInfo>();
+
+    /**
+     * Time-to-live and refresh-ahead bookkeeping for cached AuthorizationInfo instances.
+     */
+    private final CacheEntryExpiration<AuthorizationInfo> authorizationExpiration =
+            new CacheEntryExpiration<AuthorizationInfo>();
+
+    /**
+     * Whether a subclass overrides {@link #isPermitted(Permission, AuthorizationInfo)}, in which case all batched
+     * permission checks are routed through that method.
+     */
+    private final boolean permissionCheckOverridden = overridesPermissionCheck(getClass());
+
     /*-------------------------------------------
     |         C O N S T R U C T O R S           |
     ============================================*/
@@ -192,6 +258,62 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         }
     }
 
+    /**
+     * Returns the number of milliseconds a cached {@code AuthorizationInfo} may be used after it was loaded, or
+     * {@code 0} (the default) if cached entries live until they are evicted by the cache or
+     * {@link #clearCachedAuthorizationInfo(PrincipalCollection) cleared}.
+     *
+     * @return the time-to-live of cached authorization entries in milliseconds, {@code 0} if unbounded.
+     * @since 3.1.0
+     */
+    public long getAuthorizationCacheTimeToLive() {
+        return authorizationExpiration.getTimeToLive();
+    }
+
+    /**
+     * Sets the number of milliseconds a cached {@code AuthorizationInfo} may be used after it was loaded.  Once
+     * exceeded, the next lookup reloads it via {@link #doGetAuthorizationInfo(PrincipalCollection)}.  A value of
+     * {@code 0} or less disables expiration.
+     * <p/>
+     * Expiration is tracked per cache key by this realm instance, so entries put into a shared cache by other nodes
+     * start aging when this realm first sees them.
+     *
+     * @param authorizationCacheTimeToLive the time-to-live of cached authorization entries in milliseconds.
+     * @since 3.1.0
+     */
+    public void setAuthorizationCacheTimeToLive(long authorizationCacheTimeToLive) {
+        authorizationExpiration.setTimeToLive(authorizationCacheTimeToLive);
+    }
+
+    /**
+     * Returns the number of milliseconds before a cached {@code AuthorizationInfo} expires during which it is
+     * reloaded in the background, or {@code 0} (the default) if entries are only reloaded once they have expired.
+     *
+     * @return the refresh-ahead window of cached authorization entries in milliseconds.
+     * @since 3.1.0
+     */
+    public long getAuthorizationCacheRefreshAhead() {
+        return authorizationExpiration.getRefreshAhead();
+    }
+
+    /**
+     * Sets the number of milliseconds before a cached {@code AuthorizationInfo} expires during which it is reloaded
+     * in the background.  A lookup that finds an entry within this window still returns that entry immediately, but
+     * also triggers a reload on the {@link #getCacheRefreshExecutor() cacheRefreshExecutor}, so that frequently used
+     * entries are replaced before they expire and callers never wait for the data source.  Only takes effect if an
+     * {@link #setAuthorizationCacheTimeToLive(long) authorizationCacheTimeToLive} is set.
+     * <p/>
+     * For example, a time-to-live of 10 minutes and a refresh-ahead of 2 minutes bound the staleness of
+     * authorization data to 10 minutes, while entries used at least once every 8 minutes are never reloaded on the
+     * calling thread.
+     *
+     * @param authorizationCacheRefreshAhead the refresh-ahead window of cached authorization entries in milliseconds.
+     * @since 3.1.0
+     */
+    public void setAuthorizationCacheRefreshAhead(long authorizationCacheRefreshAhead) {
+        authorizationExpiration.setRefreshAhead(authorizationCacheRefreshAhead);
+    }
+
     public PermissionResolver getPermissionResolver() {
         return permissionResolver;
     }
@@ -201,6 +323,7 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
             throw new IllegalArgumentException("Null PermissionResolver is not allowed");
         }
         this.permissionResolver = permissionResolver;
+        this.compiledPermissions.clear();
     }
 
     public RolePermissionResolver getRolePermissionResolver() {
@@ -209,6 +332,132 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     public void setRolePermissionResolver(RolePermissionResolver permissionRoleResolver) {
         this.permissionRoleResolver = permissionRoleResolver;
+        this.compiledPermissions.clear();
+        this.rolePermissions.clear();
+    }
+
+    /**
+     * Returns {@code true} if the permissions the {@link #getRolePermissionResolver() RolePermissionResolver} resolves
+     * for each role are compiled once and shared by all accounts holding that role, {@code false} (the default) if
+     * they are resolved again for each account.
+     *
+     * @return {@code true} if the permissions resolved for each role are cached and shared between accounts.
+     * @since 3.1.0
+     */
+    public boolean isRolePermissionResolverCachingEnabled() {
+        return rolePermissionResolverCachingEnabled;
+    }
+
+    /**
+     * Sets whether the permissions the {@link #getRolePermissionResolver() RolePermissionResolver} resolves for each
+     * role are compiled once and shared by all accounts holding that role.  When many accounts hold the same few
+     * roles this avoids resolving the role permissions for every account, and every account's compiled permissions
+     * then reference the shared role permissions instead of holding a copy of them.
+     * <p/>
+     * This only applies to permissions obtained from a {@code RolePermissionResolver}; it has no effect if none is
+     * configured.  Role permissions that a realm already includes in each account's {@code AuthorizationInfo} - as
+     * the {@link SimpleAccountRealm}, the {@code IniRealm} and a {@code JdbcRealm} with
+     * {@code permissionsLookupEnabled} do - remain part of that account's own permissions and are not shared.
+     * <p/>
+     * Cached role permissions are kept until {@link #clearCachedRolePermissions()} is called, which should be done
+     * whenever the permissions assigned to a role change.
+     *
+     * @param rolePermissionResolverCachingEnabled whether the permissions resolved for each role are cached and
+     *                                             shared.
+     * @since 3.1.0
+     */
+    public void setRolePermissionResolverCachingEnabled(boolean rolePermissionResolverCachingEnabled) {
+        this.rolePermissionResolverCachingEnabled = rolePermissionResolverCachingEnabled;
+        this.rolePermissions.clear();
+    }
+
+    /**
+     * Returns the catalog of frequently checked permissions the compiled permissions of cached
+     * {@code AuthorizationInfo} instances are evaluated against, or {@code null} (the default) if none.
+     *
+     * @return the catalog of frequently checked permissions, or {@code null}.
+     * @since 3.1.0
+     */
+    public PermissionCatalog getPermissionCatalog() {
+        return permissionCatalog;
+    }
+
+    /**
+     * Sets the catalog of frequently checked permissions.  When authorization caching is enabled, the permissions of
+     * each cached {@code AuthorizationInfo} are evaluated against all catalogued permissions once when they are
+     * compiled, after which checks for the catalog's {@link PermissionKey}s are a single bit test.
+     *
+     * @param permissionCatalog the catalog of frequently checked permissions, or {@code null}.
+     * @since 3.1.0
+     */
+    public void setPermissionCatalog(PermissionCatalog permissionCatalog) {
+        this.permissionCatalog = permissionCatalog;
+        this.compiledPermissions.clear();
+    }
+
+    /**
+     * Returns the maximum number of recent permission check decisions memoized per cached
+     * {@code AuthorizationInfo}, or {@code 0} (the default) if decisions are not memoized.
+     *
+     * @return the maximum number of memoized decisions per cached {@code AuthorizationInfo}, or {@code 0}.
+     * @since 3.1.0
+     */
+    public int getAuthorizationDecisionMemoSize() {
+        return authorizationDecisionMemoSize;
+    }
+
+    /**
+     * Sets the maximum number of recent permission check decisions memoized per cached {@code AuthorizationInfo}.
+     * When authorization caching is enabled, repeated checks of the same permission - in particular denials, which
+     * have to examine every granted permission - then cost a single hash lookup.  The memoized decisions are
+     * discarded whenever the {@code AuthorizationInfo} is removed from or replaced in the authorization cache.
+     *
+     * @param authorizationDecisionMemoSize the maximum number of memoized decisions per cached
+     *                                      {@code AuthorizationInfo}, or {@code 0} to not memoize decisions.
+     * @since 3.1.0
+     */
+    public void setAuthorizationDecisionMemoSize(int authorizationDecisionMemoSize) {
+        this.authorizationDecisionMemoSize = authorizationDecisionMemoSize;
+        this.compiledPermissions.clear();
+    }
+
+    /**
+     * Returns the minimum number of instance ids for which
+     * {@link #filterPermitted(PrincipalCollection, String, Collection) filterPermitted} evaluates the instances in
+     * parallel, or {@code 0} (the default) if they are always evaluated on the calling thread.
+     *
+     * @return the minimum number of instance ids evaluated in parallel, or {@code 0} if disabled.
+     * @since 3.1.0
+     */
+    public int getParallelFilterThreshold() {
+        return parallelFilterThreshold;
+    }
+
+    /**
+     * Sets the minimum number of instance ids for which
+     * {@link #filterPermitted(PrincipalCollection, String, Collection) filterPermitted} evaluates the instances in
+     * parallel on the common {@link java.util.concurrent.ForkJoinPool ForkJoinPool}.  Only worthwhile for very large
+     * inputs, since small ones are evaluated faster on the calling thread.  Requires the
+     * {@link #getPermissionResolver() permissionResolver} to be thread-safe, as the default one is.
+     *
+     * @param parallelFilterThreshold the minimum number of instance ids evaluated in parallel, or {@code 0} to
+     *                                disable parallel evaluation.
+     * @since 3.1.0
+     */
+    public void setParallelFilterThreshold(int parallelFilterThreshold) {
+        this.parallelFilterThreshold = parallelFilterThreshold;
+    }
+
+    /**
+     * Discards the cached permissions of all roles as well as all permissions compiled from them, so they are
+     * resolved again on next use.  Only needed if
+     * {@link #setRolePermissionResolverCachingEnabled(boolean) rolePermissionResolverCachingEnabled} is {@code true}.
+     *
+     * @since 3.1.0
+     */
+    public void clearCachedRolePermissions() {
+        this.rolePermissions.clear();
+        this.compiledPermissions.clear();
     }
 
     /*--------------------------------------------
@@ -322,6 +571,12 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
      * method.  This ensures that the next call to {@code getAuthorizationInfo(PrincipalCollection)} will
      * acquire the account's fresh authorization data, where it will then be cached for efficient reuse.  This
      * ensures that stale authorization data will not be reused.
+     * <p/>
+     * When caching is enabled, concurrent cache misses for the same cache key are coalesced: a single caller invokes
+     * {@link #doGetAuthorizationInfo(PrincipalCollection)} while the others wait for and share its result.
+     * <p/>
+     * Note that the permissions of a cached {@code AuthorizationInfo} are resolved only once and then reused for as
+     * long as that entry remains in the cache, so cached instances should never be modified in place.
      *
      * @param principals the corresponding Subject's identifying principals with which to look up the Subject's
      *                   {@code AuthorizationInfo}.
@@ -354,22 +609,69 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
                     LOGGER.trace("AuthorizationInfo found in cache for principals [" + principals + "]");
                 }
             }
+            if (info != null) {
+                info = checkExpiration(principals, key, cache, info);
+            }
         }
 
 
         if (info == null) {
-            // Call template method if the info was not found in a cache
-            info = doGetAuthorizationInfo(principals);
-            // If the info is not null and the cache has been created, then cache the authorization info.
-            if (info != null && cache != null) {
-                if (LOGGER.isTraceEnabled()) {
-                    LOGGER.trace("Caching authorization info for principals: [" + principals + "].");
-                }
+            if (cache != null) {
+                // Only one caller per cache key queries the data source, concurrent callers share its result:
                 Object key = getAuthorizationCacheKey(principals);
-                cache.put(key, info);
+                info = authorizationLoads.load(key, () -> loadAuthorizationInfo(principals, key, cache));
+            } else {
+                // Call template method if the info was not found in a cache
+                info = doGetAuthorizationInfo(principals);
             }
         }
 
+        rememberAuthorizationCacheKey(info, principals, cache);
+
+        return info;
+    }
+
+    /**
+     * Associates a cached info with its cache key, so that {@link #getPermissions(AuthorizationInfo)} can find the
+     * permissions compiled for that key.
+     */
+    private void rememberAuthorizationCacheKey(AuthorizationInfo info, PrincipalCollection principals,
+                                               Cache<Object, AuthorizationInfo> cache) {
+        if (cache != null && info != null && authorizationCacheKeys.get(info) == null) {
+            authorizationCacheKeys.put(info, getAuthorizationCacheKey(principals));
+        }
+    }
+
+    /**
+     * Returns {@code null} if the cached info has expired, otherwise returns it and schedules a background reload if
+     * it is due for a refresh.
+     */
+    private AuthorizationInfo checkExpiration(PrincipalCollection principals, Object key,
+                                              Cache<Object, AuthorizationInfo> cache, AuthorizationInfo info) {
+        if (authorizationExpiration.isExpired(key)) {
+            LOGGER.trace("Cached AuthorizationInfo for principals [{}] has expired.", principals);
+            return null;
+        }
+        if (authorizationExpiration.isRefreshDue(key)) {
+            authorizationExpiration.refresh(key, getAvailableCacheRefreshExecutor(),
+                    () -> authorizationLoads.load(key, () -> loadAuthorizationInfo(principals, key, cache)));
+        }
+        return info;
+    }
+
+    private AuthorizationInfo loadAuthorizationInfo(PrincipalCollection principals, Object key,
+                                                    Cache<Object, AuthorizationInfo> cache) {
+        // Call template method if the info was not found in a cache
+        AuthorizationInfo info = doGetAuthorizationInfo(principals);
+        // If the info is not null and the cache has been created, then cache the authorization info.
+        if (info != null) {
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Caching authorization info for principals: [" + principals + "].");
+            }
+            cache.put(key, info);
+            compiledPermissions.remove(key);
+            authorizationExpiration.loaded(key, cache);
+        }
         return info;
     }
 
@@ -405,6 +707,8 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         if (cache != null) {
             Object key = getAuthorizationCacheKey(principals);
             cache.remove(key);
+            authorizationExpiration.forget(key);
+            compiledPermissions.remove(key);
         }
     }
 
@@ -419,31 +723,108 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
      */
     protected abstract AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals);
 
+    /**
+     * Returns all permissions granted by the specified {@code AuthorizationInfo}: its object permissions, its
+     * resolved string permissions and the permissions resolved for each of its roles.
+     * <p/>
+     * The returned collection is an immutable {@link CompiledPermissions} instance.  If authorization caching is
+     * enabled, it is built only once per authorization cache key and reused until the cached entry is reloaded or
+     * removed from the cache (e.g. via
+     * {@link #clearCachedAuthorizationInfo(org.apache.shiro.subject.PrincipalCollection) clearCachedAuthorizationInfo}).
+     * Caches that return a copy of the entry on every lookup share the compiled permissions as long as the copy grants
+     * the same roles and permissions.
+     * Catalog decisions and memoized decisions are held by a copy kept for that {@code AuthorizationInfo} alone, so
+     * instances shared between accounts, such as compiled role permissions, are never changed.
+     *
+     * @param info the AuthorizationInfo for which to return the granted permissions.
+     * @return all permissions granted by the specified {@code AuthorizationInfo}.
+     */
     //visibility changed from private to protected per SHIRO-332
     protected Collection<Permission> getPermissions(AuthorizationInfo info) {
-        Set<Permission> permissions = new HashSet<Permission>();
+        if (info == null) {
+            return CompiledPermissions.empty();
+        }
+        if (getAvailableAuthorizationCache() == null) {
+            //not cached, so the info instance is most likely not going to be seen again:
+            return compilePermissions(info);
+        }
 
-        if (info != null) {
-            Collection<Permission> perms = info.getObjectPermissions();
-            if (!CollectionUtils.isEmpty(perms)) {
-                permissions.addAll(perms);
-            }
-            perms = resolvePermissions(info.getStringPermissions());
-            if (!CollectionUtils.isEmpty(perms)) {
-                permissions.addAll(perms);
-            }
+        Object key = authorizationCacheKeys.get(info);
+        if (key == null) {
+            //not handed out by getAuthorizationInfo, so there is no cache entry to associate the permissions with:
+            return compilePermissions(info);
+        }
+        CompiledEntry entry = compiledPermissions.get(key);
+        if (entry == null || !entry.isCompiledFrom(info)) {
+            CompiledPermissions permissions = compilePermissions(info).precompute(getPermissionCatalog())
+                    .memoizeDecisions(getAuthorizationDecisionMemoSize());
+            entry = new CompiledEntry(info, permissions);
+            compiledPermissions.put(key, entry);
+            purgeCompiledPermissions();
+        }
+        return entry.permissions;
+    }
 
-            perms = resolveRolePermissions(info.getRoles());
-            if (!CollectionUtils.isEmpty(perms)) {
-                permissions.addAll(perms);
-            }
+    /**
+     * Periodically discards the compiled permissions of entries that the cache evicted on its own.
+     */
+    private void purgeCompiledPermissions() {
+        if (compilationsSincePurge.incrementAndGet() < COMPILED_PERMISSIONS_PURGE_INTERVAL) {
+            return;
+        }
+        compilationsSincePurge.set(0);
+        Cache<Object, AuthorizationInfo> cache = getAvailableAuthorizationCache();
+        if (cache != null && compiledPermissions.size() > cache.size()) {
+            compiledPermissions.keySet().retainAll(cache.keys());
         }
+    }
 
-        if (permissions.isEmpty()) {
-            return Collections.emptySet();
-        } else {
-            return Collections.unmodifiableSet(permissions);
+    private CompiledPermissions compilePermissions(AuthorizationInfo info) {
+        List<Permission> permissions = new ArrayList<Permission>();
+
+        Collection<Permission> perms = info.getObjectPermissions();
+        if (!CollectionUtils.isEmpty(perms)) {
+            permissions.addAll(perms);
+        }
+        perms = resolvePermissions(info.getStringPermissions());
+        if (!CollectionUtils.isEmpty(perms)) {
+            permissions.addAll(perms);
+        }
+
+        if (isRolePermissionResolverCachingEnabled()) {
+            return CompiledPermissions.of(permissions, getCompiledRolePermissions(info.getRoles()));
+        }
+
+        perms = resolveRolePermissions(info.getRoles());
+        if (!CollectionUtils.isEmpty(perms)) {
+            permissions.addAll(perms);
+        }
+
+        return CompiledPermissions.of(permissions);
+    }
+
+    private List<CompiledPermissions> getCompiledRolePermissions(Collection<String> roleNames) {
+        RolePermissionResolver resolver = getRolePermissionResolver();
+        if (resolver == null || CollectionUtils.isEmpty(roleNames)) {
+            return Collections.emptyList();
+        }
+        List<CompiledPermissions> compiled = new ArrayList<CompiledPermissions>(roleNames.size());
+        for (String roleName : roleNames) {
+            if (roleName == null) {
+                continue;
+            }
+            CompiledPermissions permissions = rolePermissions.get(roleName);
+            if (permissions == null) {
+                //resolved outside of the map to not block other roles while the resolver is consulted:
+                permissions = CompiledPermissions.of(resolver.resolvePermissionsInRole(roleName));
+                CompiledPermissions existing = rolePermissions.putIfAbsent(roleName, permissions);
+                if (existing != null) {
+                    permissions = existing;
+                }
+            }
+            compiled.add(permissions);
         }
+        return compiled;
     }
 
     private Collection<Permission> resolvePermissions(Collection<String> stringPerms) {
@@ -488,7 +869,34 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     //visibility changed from private to protected per SHIRO-332
     protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
-        Collection<Permission> perms = getPermissions(info);
+        return implies(getPermissions(info), permission);
+    }
+
+    /**
+     * Evaluates a single permission of a batched check against the already obtained permissions of the given info,
+     * unless a subclass overrides {@link #isPermitted(Permission, AuthorizationInfo)}, which then decides instead.
+     */
+    private boolean implies(Collection<Permission> perms, Permission permission, AuthorizationInfo info) {
+        return permissionCheckOverridden ? isPermitted(permission, info) : implies(perms, permission);
+    }
+
+    private static boolean overridesPermissionCheck(Class<?> type) {
+        for (Class<?> c = type; c != null && c != AuthorizingRealm.class; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (method.getName().equals("isPermitted") && parameterTypes.length == 2
+                        && parameterTypes[0] == Permission.class && parameterTypes[1] == AuthorizationInfo.class) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean implies(Collection<Permission> perms, Permission permission) {
+        if (perms instanceof CompiledPermissions compiled) {
+            return compiled.implies(permission);
+        }
         if (perms != null && !perms.isEmpty()) {
             for (Permission perm : perms) {
                 if (perm.implies(permission)) {
@@ -517,9 +925,10 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         if (permissions != null && !permissions.isEmpty()) {
             int size = permissions.size();
             result = new boolean[size];
+            Collection<Permission> perms = getPermissions(info);
             int i = 0;
             for (Permission p : permissions) {
-                result[i++] = isPermitted(p, info);
+                result[i++] = implies(perms, p, info);
             }
         } else {
             result = new boolean[0];
@@ -545,8 +954,9 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     protected boolean isPermittedAll(Collection<Permission> permissions, AuthorizationInfo info) {
         if (permissions != null && !permissions.isEmpty()) {
+            Collection<Permission> perms = getPermissions(info);
             for (Permission p : permissions) {
-                if (!isPermitted(p, info)) {
+                if (!implies(perms, p, info)) {
                     return false;
                 }
             }
@@ -642,6 +1052,74 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         return true;
     }
 
+    /**
+     * Evaluates the whole batch against a single {@link #getAuthorizationInfo(PrincipalCollection) AuthorizationInfo}
+     * lookup and a single {@link #getPermissions(AuthorizationInfo) permission set}.
+     * If a subclass overrides {@link #isPermitted(Permission, AuthorizationInfo)}, each permission is evaluated by
+     * that method instead.
+     *
+     * @since 3.1.0
+     */
+    @Override
+    public AuthorizationDecisions getAuthorizationDecisions(PrincipalCollection principals,
+                                                            Collection<String> permissions,
+                                                            Collection<String> roleIdentifiers) {
+        AuthorizationInfo info = getAuthorizationInfo(principals);
+        Map<String, Boolean> permitted = new LinkedHashMap<>();
+        if (permissions != null && !permissions.isEmpty()) {
+            Collection<Permission> perms = getPermissions(info);
+            PermissionResolver resolver = getPermissionResolver();
+            for (String permission : permissions) {
+                permitted.computeIfAbsent(permission, p -> implies(perms, resolver.resolvePermission(p), info));
+            }
+        }
+        Map<String, Boolean> hasRoles = new LinkedHashMap<>();
+        if (roleIdentifiers != null) {
+            for (String roleIdentifier : roleIdentifiers) {
+                hasRoles.put(roleIdentifier, hasRole(roleIdentifier, info));
+            }
+        }
+        return new AuthorizationDecisions(permitted, hasRoles);
+    }
+
+    /**
+     * Evaluates all instances against a single {@link #getAuthorizationInfo(PrincipalCollection) AuthorizationInfo}
+     * lookup and a single {@link #getPermissions(AuthorizationInfo) permission set}, in parallel if there are at
+     * least {@link #setParallelFilterThreshold(int) parallelFilterThreshold} instances.
+     * If a subclass overrides {@link #isPermitted(Permission, AuthorizationInfo)}, each instance is evaluated by
+     * that method instead.
+     *
+     * @since 3.1.0
+     */
+    @Override
+    public List<String> filterPermitted(PrincipalCollection principals, String permissionPrefix,
+                                        Collection<String> instanceIds) {
+        if (instanceIds == null || instanceIds.isEmpty()) {
+            return new ArrayList<String>();
+        }
+        AuthorizationInfo info = getAuthorizationInfo(principals);
+        Collection<Permission> perms = getPermissions(info);
+        if (perms.isEmpty() && !permissionCheckOverridden) {
+            return new ArrayList<String>();
+        }
+        PermissionResolver resolver = getPermissionResolver();
+        String prefix = permissionPrefix + PART_DIVIDER_TOKEN;
+        Predicate<String> permitted =
+                instanceId -> implies(perms, resolver.resolvePermission(prefix + instanceId), info);
+
+        int threshold = getParallelFilterThreshold();
+        if (threshold > 0 && instanceIds.size() >= threshold) {
+            return instanceIds.parallelStream().filter(permitted).collect(Collectors.toList());
+        }
+        List<String> filtered = new ArrayList<String>();
+        for (String instanceId : instanceIds) {
+            if (permitted.test(instanceId)) {
+                filtered.add(instanceId);
+            }
+        }
+        return filtered;
+    }
+
     public void checkRole(PrincipalCollection principal, String role) throws AuthorizationException {
         AuthorizationInfo info = getAuthorizationInfo(principal);
         checkRole(role, info);
@@ -686,4 +1164,36 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         super.doClearCache(principals);
         clearCachedAuthorizationInfo(principals);
     }
+
+    /**
+     * The compiled permissions of a cached {@code AuthorizationInfo}, along with the roles and permissions they were
+     * compiled from, so that copies of the cached entry can be recognized.
+     */
+    private static final class CompiledEntry {
+
+        private final WeakReference<AuthorizationInfo> source;
+        private final Set<String> roles;
+        private final Set<String> stringPermissions;
+        private final Set<Permission> objectPermissions;
+        private final CompiledPermissions permissions;
+
+        CompiledEntry(AuthorizationInfo info, CompiledPermissions permissions) {
+            this.source = new WeakReference<AuthorizationInfo>(info);
+            this.roles = copy(info.getRoles());
+            this.stringPermissions = copy(info.getStringPermissions());
+            this.objectPermissions = copy(info.getObjectPermissions());
+            this.permissions = permissions;
+        }
+
+        boolean isCompiledFrom(AuthorizationInfo info) {
+            return source.get() == info
+                    || roles.equals(copy(info.getRoles()))
+                    && stringPermissions.equals(copy(info.getStringPermissions()))
+                    && objectPermissions.equals(copy(info.getObjectPermissions()));
+        }
+
+        private static <T> Set<T> copy(Collection<T> values) {
+            return CollectionUtils.isEmpty(values) ? Collections.<T>emptySet() : new HashSet<T>(values);
+        }
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm;
+
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks when realm cache entries were loaded in order to enforce a time-to-live and to trigger a background
+ * refresh of entries that are about to expire (refresh-ahead).
+ * <p/>
+ * Load times are recorded per cache key, so expiration works with any {@link Cache} implementation.  Keys whose
+ * entries were not loaded by this realm instance (e.g. entries put into a distributed cache by another node) are
+ * considered loaded when first seen.  Load times of expired entries are purged periodically, together with the
+ * expired cache entries themselves, so that keys that are no longer used do not accumulate.
+ *
+ * @param <V> the cached value type
+ * @since 3.1.0
+ */
+final class CacheEntryExpiration<V> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheEntryExpiration.class);
+
+    /**
+     * Number of loads between two purges of expired load times.
+     */
+    private static final int PURGE_INTERVAL = 256;
+
+    private final ConcurrentMap<Object, Long> loadTimes = new ConcurrentHashMap<Object, Long>();
+
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger loadsSincePurge = new AtomicInteger();
+
+    private volatile long timeToLive;
+
+    private volatile long refreshAhead;
+
+    long getTimeToLive() {
+        return timeToLive;
+    }
+
+    void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    long getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    void setRefreshAhead(long refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
+    boolean isEnabled() {
+        return timeToLive > 0;
+    }
+
+    /**
+     * Returns {@code true} if entries within the refresh-ahead window should be reloaded in the background.
+     */
+    boolean isRefreshAheadEnabled() {
+        return isEnabled() && refreshAhead > 0;
+    }
+
+    /**
+     * Records that the entry for the given key has just been loaded from the data source and put into the cache.
+     * Every {@link #PURGE_INTERVAL} loads, expired entries are removed from both the load times and the cache.
+     */
+    void loaded(Object key, Cache<Object, V> cache) {
+        if (!isEnabled() || key == null) {
+            return;
+        }
+        loadTimes.put(key, System.nanoTime());
+        if (loadsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            loadsSincePurge.set(0);
+            purge(cache);
+        }
+    }
+
+    /**
+     * Discards the load time of the given key, e.g. because its cache entry was cleared.
+     */
+    void forget(Object key) {
+        if (key != null) {
+            loadTimes.remove(key);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the cached entry for the given key has outlived the time-to-live and must not be used
+     * anymore.
+     */
+    boolean isExpired(Object key) {
+        return isEnabled() && age(key) >= timeToLive;
+    }
+
+    /**
+     * Returns {@code true} if the cached entry for the given key is still valid but within the refresh-ahead window,
+     * i.e. it should be reloaded in the background.
+     */
+    boolean isRefreshDue(Object key) {
+        long ttl = timeToLive;
+        long ahead = refreshAhead;
+        return ttl > 0 && ahead > 0 && age(key) >= ttl - ahead;
+    }
+
+    /**
+     * Runs the given reload task for the specified cache key on the executor, unless a refresh for that key is
+     * already pending or no executor is available.  The task is skipped if the executor rejects it; the entry will
+     * then simply expire.
+     * <p/>
+     * If a {@link Subject} is bound to the calling thread, the task runs with that Subject (and its
+     * {@code SecurityManager}) bound, just like the reload would have if it had happened on the calling thread.
+     */
+    void refresh(Object key, Executor executor, Runnable reload) {
+        if (key == null || executor == null || !refreshing.add(key)) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                reload.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to refresh cache entry for key [{}] ahead of its expiration.", key, e);
+            } finally {
+                refreshing.remove(key);
+            }
+        };
+        Subject subject = ThreadContext.getSubject();
+        if (subject != null) {
+            task = subject.associateWith(task);
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            LOGGER.debug("Refresh of cache entry for key [{}] was rejected, it will expire instead.", key);
+        }
+    }
+
+    private long age(Object key) {
+        Long loadTime = loadTimes.get(key);
+        if (loadTime == null) {
+            loadTime = loadTimes.putIfAbsent(key, System.nanoTime());
+            if (loadTime == null) {
+                return 0;
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadTime);
+    }
+
+    private void purge(Cache<Object, V> cache) {
+        long ttl = timeToLive;
+        long now = System.nanoTime();
+        for (Map.Entry<Object, Long> entry : loadTimes.entrySet()) {
+            if (TimeUnit.NANOSECONDS.toMillis(now - entry.getValue()) >= ttl
+                    && loadTimes.remove(entry.getKey(), entry.getValue()) && cache != null) {
+                cache.remove(entry.getKey());
+            }
+        }
+    }
+}
@@ -23,11 +23,18 @@ import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.cache.CacheManagerAware;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.CollectionUtils;
+import org.apache.shiro.lang.util.Destroyable;
 import org.apache.shiro.lang.util.Nameable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -45,18 +52,25 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @see #getAvailablePrincipal(org.apache.shiro.subject.PrincipalCollection)
  * @since 0.9
  */
-public abstract class CachingRealm implements Realm, Nameable, CacheManagerAware, LogoutAware {
+public abstract class CachingRealm implements Realm, Nameable, CacheManagerAware, LogoutAware, Destroyable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CachingRealm.class);
 
     private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
 
+    private static final int CACHE_REFRESH_THREADS = 2;
+    private static final int CACHE_REFRESH_QUEUE_CAPACITY = 1024;
+    private static final long CACHE_REFRESH_KEEP_ALIVE_SECONDS = 60;
+
     /*--------------------------------------------
     |    I N S T A N C E   V A R I A B L E S    |
     ============================================*/
     private String name;
     private boolean cachingEnabled;
     private CacheManager cacheManager;
+    private Executor cacheRefreshExecutor;
+    private ExecutorService defaultCacheRefreshExecutor;
+    private boolean destroyed;
 
     /**
      * Default no-argument constructor that defaults
@@ -119,6 +133,99 @@ public abstract class CachingRealm implements Realm, Nameable, CacheManagerAware
         this.cachingEnabled = cachingEnabled;
     }
 
+    /**
+     * Returns the {@code Executor} used to reload cache entries in the background ahead of their expiration, or
+     * {@code null} if this realm creates its own executor with a small number of daemon threads when needed.
+     *
+     * @return the {@code Executor} used to reload cache entries in the background, or {@code null} for the default.
+     * @see AuthorizingRealm#setAuthorizationCacheRefreshAhead(long)
+     * @see AuthenticatingRealm#setAuthenticationCacheRefreshAhead(long)
+     * @since 3.1.0
+     */
+    public Executor getCacheRefreshExecutor() {
+        return cacheRefreshExecutor;
+    }
+
+    /**
+     * Sets the {@code Executor} used to reload cache entries in the background ahead of their expiration.  Tasks
+     * rejected by the executor are skipped, in which case the affected entries simply expire.
+     * <p/>
+     * The lifecycle of a configured executor is managed by the caller; only the default executor created by this
+     * realm is shut down when the realm is {@link #destroy() destroyed}.
+     *
+     * @param cacheRefreshExecutor the {@code Executor} used to reload cache entries in the background, or
+     *                             {@code null} to let this realm create a default executor.
+     * @since 3.1.0
+     */
+    public void setCacheRefreshExecutor(Executor cacheRefreshExecutor) {
+        this.cacheRefreshExecutor = cacheRefreshExecutor;
+    }
+
+    /**
+     * Returns the {@code Executor} to use for reloading cache entries in the background.  This functions as follows:
+     * <ol>
+     * <li>If a {@link #setCacheRefreshExecutor(Executor) cacheRefreshExecutor} has been configured, it is
+     * returned.</li>
+     * <li>Otherwise a default executor owned by this realm is created when the first cache entry is refreshed ahead
+     * of its expiration, so realms without refresh-ahead never create one.  It runs at most two daemon threads,
+     * which terminate when idle, and is shut down when this realm is {@link #destroy() destroyed}.</li>
+     * <li>Once this realm has been destroyed, {@code null} is returned, in which case entries are no longer
+     * refreshed in the background and simply expire.</li>
+     * </ol>
+     *
+     * @return the {@code Executor} to use for reloading cache entries in the background, or {@code null} if this
+     * realm has been destroyed.
+     * @since 3.1.0
+     */
+    protected Executor getAvailableCacheRefreshExecutor() {
+        Executor executor = getCacheRefreshExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (this) {
+            if (this.defaultCacheRefreshExecutor == null && !this.destroyed) {
+                LOGGER.debug("No cacheRefreshExecutor set.  Creating default executor for realm [{}]", getName());
+                this.defaultCacheRefreshExecutor = createDefaultCacheRefreshExecutor();
+            }
+            return this.defaultCacheRefreshExecutor;
+        }
+    }
+
+    private ExecutorService createDefaultCacheRefreshExecutor() {
+        String threadNamePrefix = getName() + "-cache-refresh-";
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, threadNamePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(CACHE_REFRESH_THREADS, CACHE_REFRESH_THREADS,
+                CACHE_REFRESH_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(CACHE_REFRESH_QUEUE_CAPACITY), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Shuts down the default cache refresh executor if this realm created one.  A configured
+     * {@link #setCacheRefreshExecutor(Executor) cacheRefreshExecutor} is left untouched.  Subclasses overriding this
+     * method should call {@code super.destroy()}.
+     *
+     * @throws Exception never thrown by this implementation, declared for subclasses.
+     * @since 3.1.0
+     */
+    public void destroy() throws Exception {
+        ExecutorService executor;
+        synchronized (this) {
+            this.destroyed = true;
+            executor = this.defaultCacheRefreshExecutor;
+            this.defaultCacheRefreshExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     public String getName() {
         return name;
     }
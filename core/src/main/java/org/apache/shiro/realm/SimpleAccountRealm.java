@@ -26,6 +26,7 @@ import org.apache.shiro.authc.LockedAccountException;
 import org.apache.shiro.authc.SimpleAccount;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.SimpleRole;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.CollectionUtils;
@@ -45,6 +46,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * <p/>
  * User accounts and roles are stored in two {@code Map}s in memory, so it is expected that the total number of either
  * is not sufficiently large.
+ * <p/>
+ * The accounts holding a given role or permission can be looked up with {@link #getUsernamesWithRole(String)} and
+ * {@link #getUsernamesPermitted(Permission)}.  If the {@link #setAuthorizationIndexEnabled(boolean)
+ * authorizationIndexEnabled} property is set, these are answered from a reverse index that is maintained as accounts
+ * are added or {@link #reindexAccount(String) re-indexed}, instead of by scanning all accounts.
  *
  * @since 0.1
  */
@@ -63,6 +69,13 @@ public class SimpleAccountRealm extends AuthorizingRealm {
     protected final ReadWriteLock usersLock;
     protected final ReadWriteLock rolesLock;
 
+    private boolean authorizationIndexEnabled;
+
+    /**
+     * The reverse index of the accounts' roles and permissions, built on first use if enabled.
+     */
+    private volatile AuthorizationIndex authorizationIndex;
+
     public SimpleAccountRealm() {
         this.users = new LinkedHashMap<String, SimpleAccount>();
         this.roles = new LinkedHashMap<String, SimpleRole>();
@@ -117,6 +130,110 @@ public class SimpleAccountRealm extends AuthorizingRealm {
         } finally {
             usersLock.writeLock().unlock();
         }
+        reindexAccount(username);
+    }
+
+    /**
+     * Returns {@code true} if the accounts holding a role or permission are looked up in a reverse index maintained
+     * by this realm, {@code false} (the default) if all accounts are scanned on each lookup.
+     *
+     * @return {@code true} if role and permission holders are looked up in a reverse index.
+     * @since 3.1.0
+     */
+    public boolean isAuthorizationIndexEnabled() {
+        return authorizationIndexEnabled;
+    }
+
+    /**
+     * Sets whether the accounts holding a role or permission are looked up in a reverse index maintained by this
+     * realm.  The index is built on the first lookup, and then updated whenever an account is
+     * {@link #add(SimpleAccount) added} or {@link #reindexAccount(String) re-indexed}.
+     *
+     * @param authorizationIndexEnabled whether role and permission holders are looked up in a reverse index.
+     * @since 3.1.0
+     */
+    public void setAuthorizationIndexEnabled(boolean authorizationIndexEnabled) {
+        this.authorizationIndexEnabled = authorizationIndexEnabled;
+        this.authorizationIndex = null;
+    }
+
+    /**
+     * Updates the {@link #setAuthorizationIndexEnabled(boolean) authorization index} entries of the specified account.
+     * Must be called whenever the roles or permissions of an account already added to this realm are modified.
+     *
+     * @param username the username of the modified account.
+     * @since 3.1.0
+     */
+    public void reindexAccount(String username) {
+        AuthorizationIndex index = this.authorizationIndex;
+        if (index == null) {
+            return;
+        }
+        SimpleAccount account = getUser(username);
+        if (account == null) {
+            index.remove(username);
+        } else {
+            index.put(username, account.getRoles(), getPermissions(account));
+        }
+    }
+
+    /**
+     * Returns the usernames of all accounts holding the specified role.
+     *
+     * @param roleName the name of the role.
+     * @return the usernames of all accounts holding the specified role.
+     * @since 3.1.0
+     */
+    public Set<String> getUsernamesWithRole(String roleName) {
+        return getAuthorizationIndex().getUsernamesWithRole(roleName);
+    }
+
+    /**
+     * Returns the usernames of all accounts that are permitted to perform the specified action, i.e. that hold a
+     * permission implying the specified one.
+     *
+     * @param permission the String representation of the permission, resolved with the
+     *                   {@link #getPermissionResolver() permissionResolver}.
+     * @return the usernames of all accounts permitted to perform the specified action.
+     * @since 3.1.0
+     */
+    public Set<String> getUsernamesPermitted(String permission) {
+        return getUsernamesPermitted(getPermissionResolver().resolvePermission(permission));
+    }
+
+    /**
+     * Returns the usernames of all accounts that are permitted to perform the specified action, i.e. that hold a
+     * permission implying the specified one.
+     *
+     * @param permission the permission to check.
+     * @return the usernames of all accounts permitted to perform the specified action.
+     * @since 3.1.0
+     */
+    public Set<String> getUsernamesPermitted(Permission permission) {
+        return getAuthorizationIndex().getUsernamesPermitted(permission);
+    }
+
+    private AuthorizationIndex getAuthorizationIndex() {
+        AuthorizationIndex index = this.authorizationIndex;
+        return index != null ? index : buildAuthorizationIndex();
+    }
+
+    private AuthorizationIndex buildAuthorizationIndex() {
+        AuthorizationIndex index = new AuthorizationIndex();
+        usersLock.readLock().lock();
+        try {
+            for (Map.Entry<String, SimpleAccount> entry : this.users.entrySet()) {
+                SimpleAccount account = entry.getValue();
+                index.put(entry.getKey(), account.getRoles(), getPermissions(account));
+            }
+            //published while no account can be added, so that no later addition misses the index:
+            if (isAuthorizationIndexEnabled()) {
+                this.authorizationIndex = index;
+            }
+        } finally {
+            usersLock.readLock().unlock();
+        }
+        return index;
     }
 
     protected SimpleRole getRole(String rolename) {
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same cache key so that only one loader runs at a time per key, used by realms to
+ * keep a burst of cache misses (after startup or after an entry has been cleared) from turning into a burst of
+ * identical data source queries.
+ * <p/>
+ * The first caller for a key (the <em>leader</em>) runs the loader; callers arriving while it runs wait for and
+ * share its result.  What happens if the leader's loader throws depends on whether failures are shared:
+ * <ul>
+ * <li>If they are, the same exception is rethrown to every caller waiting on it, so that a failing data source
+ * costs a single load per burst rather than one load per waiter, one after the other.  Only suitable if the loader
+ * does not depend on anything but the key.</li>
+ * <li>If they are not, each waiter loads again, one leader at a time, since the leader may have failed because of
+ * input of its own - such as the credentials of an authentication attempt - that the waiters do not share.</li>
+ * </ul>
+ * Callers arriving after the leader finished start a new load.  A loader that re-enters the same key on the
+ * leader's thread is run directly instead of waiting on itself.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @since 3.1.0
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<K, Flight<V>>();
+
+    private final boolean shareFailures;
+
+    /**
+     * Creates a {@code SingleFlight} that shares the leader's failure with its waiters.
+     */
+    SingleFlight() {
+        this(true);
+    }
+
+    /**
+     * Creates a {@code SingleFlight} that shares the leader's failure with its waiters only if
+     * {@code shareFailures} is {@code true}, and otherwise has them load again.
+     */
+    SingleFlight(boolean shareFailures) {
+        this.shareFailures = shareFailures;
+    }
+
+    V load(K key, Supplier<V> loader) {
+        if (key == null) {
+            return loader.get();
+        }
+        while (true) {
+            Flight<V> flight = new Flight<V>();
+            Flight<V> existing = flights.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, flight, loader);
+            }
+            if (existing.leader == Thread.currentThread()) {
+                return loader.get();
+            }
+            try {
+                return existing.result.get();
+            } catch (ExecutionException e) {
+                if (shareFailures) {
+                    //the leader failed - share its failure instead of queueing up behind each other to retry:
+                    throw rethrow(e.getCause());
+                }
+                //the leader failed on its own input - load again, led by the first waiter to get here:
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loader.get();
+            }
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        //the leader only completes exceptionally with unchecked exceptions, see lead():
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return (RuntimeException) cause;
+    }
+
+    int size() {
+        return flights.size();
+    }
+
+    private V lead(K key, Flight<V> flight, Supplier<V> loader) {
+        try {
+            V value = loader.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private static final class Flight<V> {
+        private final Thread leader = Thread.currentThread();
+        private final CompletableFuture<V> result = new CompletableFuture<V>();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SaltedAuthenticationInfo;
+import org.apache.shiro.lang.codec.Hex;
+import org.apache.shiro.lang.util.ByteSource;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Remembers recently verified credentials so that repeated authentication attempts with the same principal and
+ * credentials - as sent with every request by stateless Basic or Bearer clients - can skip the credentials matcher
+ * and therefore an expensive password hash computation.
+ * <p/>
+ * Entries are keyed by an HMAC-SHA256 of the principal, the submitted credentials and the stored account credentials,
+ * computed with a random key generated per instance; neither the submitted nor the stored credentials are retained.
+ * Because the stored credentials are part of the key, changing an account's password invalidates its entries.  Only
+ * successful verifications are remembered, for at most the configured time-to-live, and concurrent verifications of
+ * the same credentials are coalesced into a single credentials matcher call.  Credentials that cannot be read as
+ * bytes without side effects (anything other than {@code byte[]}, {@code char[]}, {@code String} and
+ * {@link ByteSource}) are never cached.
+ *
+ * @since 3.1.0
+ */
+final class VerifiedCredentialsCache {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int KEY_LENGTH = 32;
+
+    private final SecretKeySpec key;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private final SingleFlight<String, Boolean> verifications = new SingleFlight<String, Boolean>();
+
+    private volatile long timeToLive;
+
+    private volatile int maxSize;
+
+    VerifiedCredentialsCache(int maxSize) {
+        byte[] secret = new byte[KEY_LENGTH];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.maxSize = maxSize;
+    }
+
+    long getTimeToLive() {
+        return timeToLive;
+    }
+
+    void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+        if (timeToLive <= 0) {
+            entries.clear();
+        }
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        entries.clear();
+    }
+
+    boolean isEnabled() {
+        return timeToLive > 0 && maxSize > 0;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns whether the token's credentials match the info's credentials, consulting the given matcher only if
+     * the same credentials have not been verified for the same principal within the time-to-live.
+     *
+     * @param principalKey the key identifying the account, used for {@link #clear(Object) invalidation}.
+     * @param token        the submitted authentication token.
+     * @param info         the stored account data.
+     * @param matcher      performs the actual credentials verification.
+     * @return {@code true} if the credentials match, {@code false} otherwise.
+     */
+    boolean verify(Object principalKey, AuthenticationToken token, AuthenticationInfo info, BooleanSupplier matcher) {
+        String cacheKey = isEnabled() && principalKey != null ? toCacheKey(principalKey, token, info) : null;
+        if (cacheKey == null) {
+            return matcher.getAsBoolean();
+        }
+        Entry entry = entries.get(cacheKey);
+        if (entry != null) {
+            if (entry.expiresAt - System.nanoTime() > 0) {
+                return true;
+            }
+            entries.remove(cacheKey, entry);
+        }
+        return verifications.load(cacheKey, () -> {
+            boolean matched = matcher.getAsBoolean();
+            if (matched) {
+                remember(cacheKey, principalKey);
+            }
+            return matched;
+        });
+    }
+
+    /**
+     * Forgets all verified credentials of the account identified by the given key.
+     *
+     * @param principalKey the key identifying the account.
+     */
+    void clear(Object principalKey) {
+        if (principalKey != null) {
+            entries.values().removeIf(entry -> principalKey.equals(entry.principalKey));
+        }
+    }
+
+
+    private void remember(String cacheKey, Object principalKey) {
+        if (entries.size() >= maxSize) {
+            //bounded without tracking usage: expired and stale entries are dropped wholesale
+            entries.clear();
+        }
+        long expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        entries.put(cacheKey, new Entry(principalKey, expiresAt));
+    }
+
+    private String toCacheKey(Object principalKey, AuthenticationToken token, AuthenticationInfo info) {
+        byte[] submitted = toBytes(token.getCredentials());
+        byte[] stored = toBytes(info.getCredentials());
+        if (submitted == null || stored == null) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            update(mac, principalKey.toString().getBytes(StandardCharsets.UTF_8));
+            update(mac, submitted);
+            update(mac, stored);
+            if (info instanceof SaltedAuthenticationInfo salted && salted.getCredentialsSalt() != null) {
+                update(mac, salted.getCredentialsSalt().getBytes());
+            }
+            return Hex.encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            //HmacSHA256 is required on every Java platform, but never fail an authentication over a cache:
+            return null;
+        }
+    }
+
+    private static void update(Mac mac, byte[] bytes) {
+        //length-prefix each part so that different splits of the same bytes never collide:
+        mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        mac.update(bytes);
+    }
+
+    private static byte[] toBytes(Object credentials) {
+        if (credentials instanceof byte[] || credentials instanceof char[]
+                || credentials instanceof String || credentials instanceof ByteSource) {
+            return ByteSource.Util.bytes(credentials).getBytes();
+        }
+        return null;
+    }
+
+    private static final class Entry {
+
+        private final Object principalKey;
+
+        private final long expiresAt;
+
+        private Entry(Object principalKey, long expiresAt) {
+            this.principalKey = principalKey;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe map that compares its keys by identity and only holds them weakly, used by realms to associate
+ * derived state with the {@code AuthenticationInfo} and {@code AuthorizationInfo} instances held in their caches.
+ * <p/>
+ * Identity semantics are required because {@code AuthorizationInfo} implementations (such as
+ * {@link org.apache.shiro.authc.SimpleAccount SimpleAccount}) may define {@code equals} in terms of their principals
+ * only, and weak keys ensure that an entry disappears once its key has been evicted from the cache and is no longer
+ * referenced elsewhere.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @since 3.1.0
+ */
+final class WeakIdentityMap<K, V> {
+
+    private final ConcurrentMap<Object, V> map = new ConcurrentHashMap<Object, V>();
+
+    private final ReferenceQueue<K> queue = new ReferenceQueue<K>();
+
+    V get(K key) {
+        expungeStaleEntries();
+        if (key == null) {
+            return null;
+        }
+        return map.get(new LookupKey(key));
+    }
+
+    void put(K key, V value) {
+        expungeStaleEntries();
+        if (key != null && value != null) {
+            map.put(new WeakKey<K>(key, queue), value);
+        }
+    }
+
+    V remove(K key) {
+        expungeStaleEntries();
+        if (key == null) {
+            return null;
+        }
+        return map.remove(new LookupKey(key));
+    }
+
+    void clear() {
+        map.clear();
+        expungeStaleEntries();
+    }
+
+    int size() {
+        expungeStaleEntries();
+        return map.size();
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends K> ref;
+        while ((ref = queue.poll()) != null) {
+            map.remove(ref);
+        }
+    }
+
+    /**
+     * Common identity-based contract shared by stored keys and transient lookup keys.
+     */
+    private interface IdentityKey {
+        Object referent();
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> implements IdentityKey {
+
+        private final int hash;
+
+        WeakKey(K referent, ReferenceQueue<K> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof IdentityKey other) {
+                Object referent = get();
+                return referent != null && referent == other.referent();
+            }
+            return false;
+        }
+    }
+
+    private static final class LookupKey implements IdentityKey {
+
+        private final Object referent;
+
+        LookupKey(Object referent) {
+            this.referent = referent;
+        }
+
+        public Object referent() {
+            return referent;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(referent);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey other && referent == other.referent();
+        }
+    }
+}
@@ -42,8 +42,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -87,6 +89,24 @@ public class JdbcRealm extends AuthorizingRealm {
      */
     protected static final String DEFAULT_PERMISSIONS_QUERY = "select permission from roles_permissions where role_name = ?";
 
+    /**
+     * The default query used to retrieve the permissions of several roles at once.  The {@code (?)} is expanded to one
+     * parameter per role.
+     *
+     * @since 3.1.0
+     */
+    protected static final String DEFAULT_PERMISSIONS_BATCH_QUERY =
+            "select permission from roles_permissions where role_name in (?)";
+
+    /**
+     * The default maximum number of roles whose permissions are retrieved with a single query.
+     *
+     * @since 3.1.0
+     */
+    protected static final int DEFAULT_PERMISSIONS_BATCH_SIZE = 500;
+
+    private static final String BATCH_PARAMETER = "(?)";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcRealm.class);
 
     /**
@@ -112,6 +132,12 @@ public class JdbcRealm extends AuthorizingRealm {
 
     protected boolean permissionsLookupEnabled;
 
+    protected String permissionsBatchQuery = DEFAULT_PERMISSIONS_BATCH_QUERY;
+
+    protected boolean permissionsBatchLookupEnabled;
+
+    protected int permissionsBatchSize = DEFAULT_PERMISSIONS_BATCH_SIZE;
+
     protected SaltStyle saltStyle = SaltStyle.NO_SALT;
 
     protected boolean saltIsBase64Encoded = true;
@@ -191,6 +217,45 @@ public class JdbcRealm extends AuthorizingRealm {
         this.permissionsLookupEnabled = permissionsLookupEnabled;
     }
 
+    /**
+     * Overrides the default query used to retrieve the permissions of several roles at once when
+     * {@link #setPermissionsBatchLookupEnabled(boolean) batch lookup} is enabled.  When using the default
+     * implementation, this query must contain the parameter list {@code (?)} exactly once, which is expanded to one
+     * parameter per role name, and return a row per permission with a single column containing the permission.
+     *
+     * @param permissionsBatchQuery the query to use for retrieving the permissions of several roles at once.
+     * @see #DEFAULT_PERMISSIONS_BATCH_QUERY
+     * @since 3.1.0
+     */
+    public void setPermissionsBatchQuery(String permissionsBatchQuery) {
+        this.permissionsBatchQuery = permissionsBatchQuery;
+    }
+
+    /**
+     * Enables retrieval of the permissions of all of a user's roles with a single
+     * {@link #setPermissionsBatchQuery(String) batch query}, instead of running the
+     * {@link #setPermissionsQuery(String) permissionsQuery} once per role.  The default is "false".  Only takes effect
+     * if {@link #setPermissionsLookupEnabled(boolean) permission lookup} is enabled.
+     *
+     * @param permissionsBatchLookupEnabled true if the permissions of all roles should be retrieved at once.
+     * @since 3.1.0
+     */
+    public void setPermissionsBatchLookupEnabled(boolean permissionsBatchLookupEnabled) {
+        this.permissionsBatchLookupEnabled = permissionsBatchLookupEnabled;
+    }
+
+    /**
+     * Sets the maximum number of roles whose permissions are retrieved with a single batch query, to stay within
+     * database limits on the number of parameters.  Users with more roles are handled with several queries.  The
+     * default is {@value #DEFAULT_PERMISSIONS_BATCH_SIZE}.
+     *
+     * @param permissionsBatchSize the maximum number of roles per batch query.
+     * @since 3.1.0
+     */
+    public void setPermissionsBatchSize(int permissionsBatchSize) {
+        this.permissionsBatchSize = permissionsBatchSize;
+    }
+
     /**
      * Sets the salt style.  See {@link #saltStyle}.
      *
@@ -412,6 +477,9 @@ public class JdbcRealm extends AuthorizingRealm {
     }
 
     protected Set<String> getPermissions(Connection conn, String username, Collection<String> roleNames) throws SQLException {
+        if (permissionsBatchLookupEnabled) {
+            return getPermissionsInBatches(conn, roleNames);
+        }
         PreparedStatement ps = null;
         Set<String> permissions = new LinkedHashSet<String>();
         try {
@@ -446,6 +514,50 @@ public class JdbcRealm extends AuthorizingRealm {
         return permissions;
     }
 
+    private Set<String> getPermissionsInBatches(Connection conn, Collection<String> roleNames) throws SQLException {
+        Set<String> permissions = new LinkedHashSet<String>();
+        List<String> roles = new ArrayList<String>(roleNames);
+        int batchSize = permissionsBatchSize > 0 ? permissionsBatchSize : roles.size();
+        for (int start = 0; start < roles.size(); start += batchSize) {
+            List<String> batch = roles.subList(start, Math.min(roles.size(), start + batchSize));
+            PreparedStatement ps = null;
+            ResultSet rs = null;
+            try {
+                ps = conn.prepareStatement(getPermissionsBatchQuery(batch.size()));
+                for (int i = 0; i < batch.size(); i++) {
+                    ps.setString(i + 1, batch.get(i));
+                }
+
+                // Execute query
+                rs = ps.executeQuery();
+
+                // Loop over results and add each returned permission to the set
+                while (rs.next()) {
+                    permissions.add(rs.getString(1));
+                }
+            } finally {
+                JdbcUtils.closeResultSet(rs);
+                JdbcUtils.closeStatement(ps);
+            }
+        }
+        return permissions;
+    }
+
+    private String getPermissionsBatchQuery(int parameterCount) {
+        int index = permissionsBatchQuery != null ? permissionsBatchQuery.indexOf(BATCH_PARAMETER) : -1;
+        if (index < 0) {
+            throw new ConfigurationException("The permissionsBatchQuery [" + permissionsBatchQuery
+                    + "] must contain the parameter list " + BATCH_PARAMETER + ".");
+        }
+        StringBuilder sb = new StringBuilder(permissionsBatchQuery.length() + parameterCount * BATCH_PARAMETER.length());
+        sb.append(permissionsBatchQuery, 0, index).append("(?");
+        for (int i = 1; i < parameterCount; i++) {
+            sb.append(", ?");
+        }
+        return sb.append(')').append(permissionsBatchQuery, index + BATCH_PARAMETER.length(),
+                permissionsBatchQuery.length()).toString();
+    }
+
     protected String getSaltForUser(String username) {
         return username;
     }
@@ -175,6 +175,7 @@ public class PropertiesRealm extends TextConfigurationRealm implements Destroyab
             if (scheduler != null) {
                 scheduler.shutdown();
             }
+            super.destroy();
         } catch (Exception e) {
             if (LOGGER.isInfoEnabled()) {
                 LOGGER.info("Unable to cleanly shutdown Scheduler.  Ignoring (shutting down)...", e);
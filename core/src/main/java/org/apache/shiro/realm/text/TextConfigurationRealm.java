@@ -207,6 +207,7 @@ public class TextConfigurationRealm extends SimpleAccountRealm {
             } else {
                 account.setRoles(null);
             }
+            reindexAccount(username);
         }
     }
 
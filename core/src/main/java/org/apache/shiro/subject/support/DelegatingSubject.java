@@ -21,6 +21,7 @@ package org.apache.shiro.subject.support;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.HostAuthenticationToken;
+import org.apache.shiro.authz.AuthorizationDecisions;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.UnauthenticatedException;
@@ -39,6 +40,7 @@ import org.apache.shiro.lang.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.StringJoiner;
@@ -242,6 +244,25 @@ public class DelegatingSubject implements Subject {
         return hasPrincipals() && securityManager.hasAllRoles(getPrincipals(), roleIdentifiers);
     }
 
+    @Override
+    public AuthorizationDecisions getAuthorizationDecisions(Collection<String> permissions,
+                                                            Collection<String> roleIdentifiers) {
+        if (hasPrincipals()) {
+            return securityManager.getAuthorizationDecisions(getPrincipals(), permissions, roleIdentifiers);
+        } else {
+            return AuthorizationDecisions.denyAll(permissions, roleIdentifiers);
+        }
+    }
+
+    @Override
+    public List<String> filterPermitted(String permissionPrefix, Collection<String> instanceIds) {
+        if (hasPrincipals()) {
+            return securityManager.filterPermitted(getPrincipals(), permissionPrefix, instanceIds);
+        } else {
+            return new ArrayList<String>();
+        }
+    }
+
     public void checkRole(String role) throws AuthorizationException {
         assertAuthzCheckPossible();
         securityManager.checkRole(getPrincipals(), role);
@@ -101,6 +101,29 @@ class DefaultPasswordServiceTest {
         verify factory
     }
 
+    @Test
+    void testParsedHashCache() {
+
+        def factory = createMock(HashFormatFactory)
+        def hash = new Sha512Hash("test", new SecureRandomNumberGenerator().nextBytes(), 100)
+        String saved = new Shiro1CryptFormat().format(hash)
+
+        //parsed only once:
+        expect(factory.getInstance(eq(saved))).andReturn(new Shiro1CryptFormat()).once()
+
+        replay factory
+
+        def service = new DefaultPasswordService()
+        service.hashFormatFactory = factory
+        service.parsedHashCacheSize = 10
+
+        assertTrue service.passwordsMatch("test", saved)
+        assertFalse service.passwordsMatch("wrong", saved)
+        assertTrue service.passwordsMatch("test", saved)
+
+        verify factory
+    }
+
     @Test
     void shiro1PasswordMatch_withSalt() {
         String storedPassword = '$shiro1$SHA-256$500000$qvBT48YD2nz+w6FishMD+w==$KmYfTMAM5/iseXAux1GCZg5qz03qlweI05alDmzBFxU='
@@ -23,6 +23,7 @@ import org.apache.shiro.authc.AuthenticationToken
 import org.apache.shiro.authc.SimpleAuthenticationInfo
 import org.apache.shiro.authc.UsernamePasswordToken
 import org.apache.shiro.crypto.hash.Sha256Hash
+import org.apache.shiro.crypto.hash.format.Shiro1CryptFormat
 import org.apache.shiro.crypto.hash.format.Shiro2CryptFormat
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.DisplayName
@@ -213,4 +214,30 @@ class PasswordMatcherTest {
         assertTrue match
     }
 
+    @Test
+    @DisplayName("re-hashes legacy shiro1 passwords on successful match")
+    void testLegacyPasswordRehashed() {
+        // given
+        def legacy = new Shiro1CryptFormat().format(new Sha256Hash("secret", "salt", 10))
+        def info = new SimpleAuthenticationInfo("user", legacy, "realm")
+        def rehashed = []
+        def matcher = new PasswordMatcher()
+        matcher.rehashHandler = { token, account, password -> rehashed << password } as PasswordRehashHandler
+
+        // when
+        def wrong = matcher.doCredentialsMatch(new UsernamePasswordToken("user", "wrong"), info)
+        def match = matcher.doCredentialsMatch(new UsernamePasswordToken("user", "secret"), info)
+
+        // then
+        assertFalse wrong
+        assertTrue match
+        assertEquals 1, rehashed.size()
+        assertTrue rehashed[0].startsWith('$shiro2$argon2id$')
+
+        // the migrated password matches and needs no further re-hashing:
+        def migrated = new SimpleAuthenticationInfo("user", rehashed[0], "realm")
+        assertTrue matcher.doCredentialsMatch(new UsernamePasswordToken("user", "secret"), migrated)
+        assertEquals 1, rehashed.size()
+    }
+
 }
@@ -20,6 +20,7 @@ package org.apache.shiro.config
 
 import org.apache.shiro.SecurityUtils
 import org.apache.shiro.authc.UsernamePasswordToken
+import org.apache.shiro.authz.permission.WildcardPermissionResolver
 import org.apache.shiro.cache.Cache
 import org.apache.shiro.cache.MapCache
 import org.apache.shiro.crypto.hash.Sha256Hash
@@ -188,6 +189,29 @@ class IniSecurityManagerFactoryTest {
         assertTrue permResolver.invoked
     }
 
+    @Test
+    void testImplicitIniRealmWithPermissionCache() {
+        def ini = new Ini();
+        ini.load('''
+            [main]
+            iniRealm.permissionResolver.permissionCacheSize = 100
+
+            [users]
+            jsmith = secret, author
+
+            [roles]
+            author = book:write
+        ''');
+
+        IniSecurityManagerFactory factory = new IniSecurityManagerFactory(ini);
+        SecurityManager sm = factory.instance
+
+        def realm = sm.realms[0]
+        def permResolver = realm.permissionResolver
+        assertTrue permResolver instanceof WildcardPermissionResolver
+        assertEquals 100, permResolver.permissionCacheSize
+    }
+
     /**
      * Test case for issue <a href="https://issues.apache.org/jira/browse/SHIRO-95">SHIRO-95</a>.
      */
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authc.credential;
+
+import org.apache.shiro.authc.HashingCapacityExceededException;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PasswordHashingLimiterTest {
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        PasswordHashingLimiter limiter = new PasswordHashingLimiter(1);
+        limiter.setMaxQueuedHashes(0);
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> limiter.execute(() -> {
+            hashing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }));
+        hashing.await();
+
+        assertThat(limiter.getActiveHashes()).isEqualTo(1);
+        assertThatThrownBy(() -> limiter.execute(() -> true)).isInstanceOf(HashingCapacityExceededException.class);
+        assertThat(limiter.getRejectedHashes()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get()).isTrue();
+        assertThat(limiter.getActiveHashes()).isZero();
+        assertThat(limiter.execute(() -> true)).isTrue();
+        assertThat(limiter.getQueuedHashes()).isZero();
+    }
+
+    @Test
+    void passwordMatcherHonorsLimiterOfPasswordService() {
+        DefaultPasswordService passwordService = new DefaultPasswordService();
+        PasswordHashingLimiter limiter = new PasswordHashingLimiter(1);
+        passwordService.setHashingLimiter(limiter);
+        PasswordMatcher matcher = new PasswordMatcher();
+        matcher.setPasswordService(passwordService);
+        SimpleAuthenticationInfo info = new SimpleAuthenticationInfo("user",
+                passwordService.hashPassword("secret"), "realm");
+
+        assertThat(matcher.doCredentialsMatch(new UsernamePasswordToken("user", "secret"), info)).isTrue();
+        assertThat(matcher.doCredentialsMatch(new UsernamePasswordToken("user", "wrong"), info)).isFalse();
+        assertThat(limiter.getActiveHashes()).isZero();
+        assertThat(limiter.getRejectedHashes()).isZero();
+    }
+}
@@ -19,21 +19,47 @@
 package org.apache.shiro.authz;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.shiro.authc.AuthenticationException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
+import org.apache.shiro.mgt.DefaultSecurityManager;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.ImmutablePrincipalCollection;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 import org.junit.jupiter.api.Test;
 
 public class ModularRealmAuthorizerTest {
 
+    private static final long SLOW_REALM_TIMEOUT_MILLIS = 50;
+
+    private static final int BATCHED_ITEMS = 10;
+
+    private static final long LDAP_TIMEOUT_MILLIS = 250;
+
+    private static final long JDBC_TIMEOUT_MILLIS = 100;
+
     @Test
     void testSettingOfRolePermissionResolver() {
         Collection<Realm> realms = new ArrayList<Realm>();
@@ -86,6 +112,271 @@ public class ModularRealmAuthorizerTest {
 
     }
 
+    @Test
+    void testAuthorizationDecisionsConsultEachRealmOnce() {
+        CountingRealm first = new CountingRealm("admin", "user:read");
+        CountingRealm second = new CountingRealm("auditor", "user:write", "audit:*");
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer(Arrays.<Realm>asList(first, second));
+        PrincipalCollection principals = principals("jsmith", "test");
+
+        AuthorizationDecisions decisions = authorizer.getAuthorizationDecisions(principals,
+                Arrays.asList("user:read", "user:write", "audit:view", "user:delete"),
+                Arrays.asList("admin", "auditor", "guest"));
+
+        assertThat(decisions.isPermitted("user:read")).isTrue();
+        assertThat(decisions.isPermitted("user:write")).isTrue();
+        assertThat(decisions.isPermitted("audit:view")).isTrue();
+        assertThat(decisions.isPermitted("user:delete")).isFalse();
+        assertThat(decisions.hasRole("admin")).isTrue();
+        assertThat(decisions.hasRole("auditor")).isTrue();
+        assertThat(decisions.hasRole("guest")).isFalse();
+        assertThat(decisions.isPermittedAll()).isFalse();
+        assertThat(decisions.getPermissionDecisions().keySet())
+                .containsExactly("user:read", "user:write", "audit:view", "user:delete");
+        assertThatThrownBy(() -> decisions.isPermitted("user:create")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(first.lookups.get()).isEqualTo(1);
+        assertThat(second.lookups.get()).isEqualTo(1);
+
+        //the array variants are batched per realm as well:
+        assertThat(authorizer.isPermitted(principals, "user:read", "audit:view", "user:delete"))
+                .containsExactly(true, true, false);
+        assertThat(first.lookups.get()).isEqualTo(2);
+        assertThat(second.lookups.get()).isEqualTo(2);
+
+        //once everything is granted the remaining realms are skipped:
+        assertThat(authorizer.getAuthorizationDecisions(principals, Arrays.asList("user:read"),
+                Arrays.asList("admin")).isPermittedAll()).isTrue();
+        assertThat(first.lookups.get()).isEqualTo(3);
+        assertThat(second.lookups.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testBatchedChecksDispatchThroughOverriddenSingleChecks() {
+        CountingRealm realm = new CountingRealm("admin", "user:read");
+        AtomicInteger singleChecks = new AtomicInteger();
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer(Arrays.<Realm>asList(realm)) {
+            @Override
+            public boolean isPermitted(PrincipalCollection principals, String permission) {
+                singleChecks.incrementAndGet();
+                return "audit:view".equals(permission) || super.isPermitted(principals, permission);
+            }
+
+            @Override
+            public boolean hasRole(PrincipalCollection principals, String roleIdentifier) {
+                singleChecks.incrementAndGet();
+                return "auditor".equals(roleIdentifier) || super.hasRole(principals, roleIdentifier);
+            }
+        };
+        PrincipalCollection principals = principals("jsmith", "test");
+
+        assertThat(authorizer.isPermitted(principals, "user:read", "audit:view", "user:delete"))
+                .containsExactly(true, true, false);
+        assertThat(authorizer.hasRoles(principals, Arrays.asList("admin", "auditor", "guest")))
+                .containsExactly(true, true, false);
+        AuthorizationDecisions decisions = authorizer.getAuthorizationDecisions(principals,
+                Arrays.asList("audit:view"), Arrays.asList("auditor"));
+        assertThat(decisions.isPermitted("audit:view")).isTrue();
+        assertThat(decisions.hasRole("auditor")).isTrue();
+        assertThat(authorizer.filterPermitted(principals, "audit", Arrays.asList("view", "edit")))
+                .containsExactly("view");
+        assertThat(singleChecks.get()).isEqualTo(BATCHED_ITEMS);
+    }
+
+    @Test
+    void testFilterPermittedConsultsEachRealmOnce() {
+        CountingRealm first = new CountingRealm("reader", "document:read:1,3");
+        CountingRealm second = new CountingRealm("editor", "document:read:4", "document:*:5");
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer(Arrays.<Realm>asList(first, second));
+        PrincipalCollection principals = principals("jsmith", "test");
+
+        assertThat(authorizer.filterPermitted(principals, "document:read", Arrays.asList("5", "4", "3", "2", "1")))
+                .containsExactly("5", "4", "3", "1");
+        assertThat(first.lookups.get()).isEqualTo(1);
+        assertThat(second.lookups.get()).isEqualTo(1);
+
+        first.setParallelFilterThreshold(2);
+        assertThat(authorizer.filterPermitted(principals, "document:read", Arrays.asList("3", "1")))
+                .containsExactly("3", "1");
+        assertThat(first.lookups.get()).isEqualTo(2);
+        assertThat(second.lookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testParallelEvaluationReturnsOnFirstGrant() {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingRealm slow = new BlockingRealm(release, "admin", "user:*");
+        CountingRealm fast = new CountingRealm("guest", "user:read");
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer(Arrays.<Realm>asList(slow, fast));
+        authorizer.setParallelRealmEvaluationEnabled(true);
+        PrincipalCollection principals = principals("jsmith", "test");
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertThat(authorizer.isPermitted(principals, "user:read")).isTrue();
+                assertThat(authorizer.hasRole(principals, "guest")).isTrue();
+                assertThat(authorizer.isPermitted(principals, "user:read", "user:read")).containsExactly(true, true);
+            });
+        } finally {
+            release.countDown();
+        }
+        assertThat(authorizer.isPermitted(principals, "user:write")).isTrue();
+        assertThat(authorizer.isPermitted(principals, "audit:view")).isFalse();
+        assertThat(authorizer.getAuthorizationDecisions(principals, Arrays.asList("user:write", "audit:view"),
+                Arrays.asList("admin", "guest")).getPermissionDecisions())
+                .containsEntry("user:write", true).containsEntry("audit:view", false);
+    }
+
+    @Test
+    void testParallelEvaluationTreatsSlowRealmAsDenial() {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingRealm slow = new BlockingRealm(release, "admin", "user:*");
+        slow.setName("slow");
+        CountingRealm fast = new CountingRealm("guest", "user:read");
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer(Arrays.<Realm>asList(slow, fast));
+        authorizer.setParallelRealmEvaluationEnabled(true);
+        authorizer.setRealmTimeouts(Collections.singletonMap("slow", SLOW_REALM_TIMEOUT_MILLIS));
+        PrincipalCollection principals = principals("jsmith", "test");
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertThat(authorizer.isPermitted(principals, "user:write")).isFalse();
+                assertThat(authorizer.hasRole(principals, "admin")).isFalse();
+            });
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testParallelEvaluationInterruptsTimedOutRealm() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountingRealm slow = new CountingRealm("admin", "user:*") {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return super.doGetAuthorizationInfo(principals);
+            }
+        };
+        slow.setName("slow");
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer(
+                Arrays.<Realm>asList(slow, new CountingRealm("guest")));
+        authorizer.setParallelRealmEvaluationEnabled(true);
+        authorizer.setRealmTimeout(SLOW_REALM_TIMEOUT_MILLIS);
+
+        assertThat(authorizer.hasRole(principals("jsmith", "test"), "admin")).isFalse();
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRealmTimeoutsAreConvertedWhenSet() {
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer();
+        Map<String, String> configured = new LinkedHashMap<>();
+        configured.put("ldapRealm", " " + LDAP_TIMEOUT_MILLIS);
+        configured.put("jdbcRealm", String.valueOf(JDBC_TIMEOUT_MILLIS));
+
+        authorizer.setRealmTimeouts((Map) configured);
+
+        assertThat(authorizer.getRealmTimeouts()).containsEntry("ldapRealm", LDAP_TIMEOUT_MILLIS)
+                .containsEntry("jdbcRealm", JDBC_TIMEOUT_MILLIS);
+        configured.put("ldapRealm", "soon");
+        assertThatThrownBy(() -> authorizer.setRealmTimeouts((Map) configured))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("ldapRealm");
+    }
+
+    @Test
+    void testParallelEvaluationPropagatesSubject() throws Exception {
+        Subject subject = new Subject.Builder(new DefaultSecurityManager()).buildSubject();
+        AtomicReference<Subject> seen = new AtomicReference<>();
+        CountingRealm first = new CountingRealm("admin") {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+                seen.set(ThreadContext.getSubject());
+                return super.doGetAuthorizationInfo(principals);
+            }
+        };
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer(
+                Arrays.<Realm>asList(first, new CountingRealm("guest")));
+        authorizer.setParallelRealmEvaluationEnabled(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        authorizer.setRealmEvaluationExecutor(executor);
+        try {
+            subject.execute(() -> authorizer.hasRole(principals("jsmith", "test"), "admin"));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(seen.get()).isSameAs(subject);
+    }
+
+    @Test
+    void testRealmRoutingConsultsOwningAndGlobalRealmsOnly() {
+        CountingRealm ldap = new CountingRealm("employee", "wiki:read");
+        ldap.setName("ldap");
+        CountingRealm jdbc = new CountingRealm("customer", "shop:buy");
+        jdbc.setName("jdbc");
+        CountingRealm roles = new CountingRealm("admin", "wiki:edit");
+        roles.setName("roles");
+        ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer(Arrays.<Realm>asList(ldap, jdbc, roles));
+        authorizer.setRealmRoutingEnabled(true);
+        authorizer.setGlobalRealmNames(Collections.singleton("roles"));
+
+        PrincipalCollection principals = principals("jsmith", "ldap");
+        assertThat(authorizer.isPermitted(principals, "wiki:read")).isTrue();
+        assertThat(authorizer.isPermitted(principals, "wiki:edit")).isTrue();
+        assertThat(authorizer.isPermitted(principals, "shop:buy")).isFalse();
+        assertThat(authorizer.hasRoles(principals, Arrays.asList("employee", "customer", "admin")))
+                .containsExactly(true, false, true);
+        assertThat(jdbc.lookups.get()).isZero();
+
+        //principals without realm names are checked against every realm:
+        assertThat(authorizer.isPermitted(ImmutablePrincipalCollection.empty(), "shop:buy")).isTrue();
+        assertThat(jdbc.lookups.get()).isEqualTo(1);
+    }
+
+    static class BlockingRealm extends CountingRealm {
+
+        private final CountDownLatch release;
+
+        BlockingRealm(CountDownLatch release, String role, String... permissions) {
+            super(role, permissions);
+            this.release = release;
+        }
+
+        @Override
+        protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.doGetAuthorizationInfo(principals);
+        }
+    }
+
+    static class CountingRealm extends AuthorizingRealm {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+        private final SimpleAuthorizationInfo info;
+
+        CountingRealm(String role, String... permissions) {
+            info = new SimpleAuthorizationInfo(new HashSet<String>(Arrays.asList(role)));
+            info.setStringPermissions(new HashSet<String>(Arrays.asList(permissions)));
+        }
+
+        @Override
+        protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+            lookups.incrementAndGet();
+            return info;
+        }
+
+        @Override
+        protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+            return null;
+        }
+    }
+
     class MockAuthorizingRealm extends AuthorizingRealm {
 
         @Override
@@ -100,4 +391,8 @@ public class ModularRealmAuthorizerTest {
         }
 
     }
+
+    private static PrincipalCollection principals(String principal, String realmName) {
+        return new ImmutablePrincipalCollection.Builder().addPrincipal(principal, realmName).build();
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.aop;
+
+import org.apache.shiro.aop.AnnotationResolver;
+import org.apache.shiro.aop.DefaultAnnotationResolver;
+import org.apache.shiro.aop.MethodInvocation;
+import org.apache.shiro.authz.UnauthenticatedException;
+import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.apache.shiro.test.SecurityManagerTestSupport;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Test cases for the {@link AnnotationsAuthorizingMethodInterceptor} class.
+ */
+public class AnnotationsAuthorizingMethodInterceptorTest extends SecurityManagerTestSupport {
+
+    @Test
+    void testAnnotationsAreResolvedOncePerMethod() throws Exception {
+        AtomicInteger resolutions = new AtomicInteger();
+        AnnotationResolver countingResolver = new AnnotationResolver() {
+            private final AnnotationResolver delegate = new DefaultAnnotationResolver();
+
+            @Override
+            public Annotation getAnnotation(MethodInvocation mi, Class<? extends Annotation> clazz) {
+                resolutions.incrementAndGet();
+                return delegate.getAnnotation(mi, clazz);
+            }
+        };
+        AnnotationsAuthorizingMethodInterceptor interceptor = new AnnotationsAuthorizingMethodInterceptor() { };
+        for (AuthorizingAnnotationMethodInterceptor aami : interceptor.getMethodInterceptors()) {
+            aami.setResolver(countingResolver);
+        }
+        int interceptorCount = interceptor.getMethodInterceptors().size();
+
+        MethodInvocation unannotated = invocationOf(SecuredService.class.getMethod("unannotated"));
+        interceptor.assertAuthorized(unannotated);
+        interceptor.assertAuthorized(unannotated);
+        assertThat(resolutions.get()).isEqualTo(interceptorCount);
+
+        MethodInvocation authenticated = invocationOf(SecuredService.class.getMethod("authenticated"));
+        runWithSubject(subject -> {
+            for (int i = 0; i < 2; i++) {
+                assertThatExceptionOfType(UnauthenticatedException.class).isThrownBy(() ->
+                        interceptor.assertAuthorized(authenticated));
+            }
+        });
+        assertThat(resolutions.get()).isEqualTo(2 * interceptorCount);
+    }
+
+    private static MethodInvocation invocationOf(Method method) {
+        SecuredService target = new SecuredService();
+        return new MethodInvocation() {
+            @Override
+            public Object proceed() throws Throwable {
+                return method.invoke(target);
+            }
+
+            @Override
+            public Method getMethod() {
+                return method;
+            }
+
+            @Override
+            public Object[] getArguments() {
+                return new Object[0];
+            }
+
+            @Override
+            public Object getThis() {
+                return target;
+            }
+        };
+    }
+
+    /**
+     * Target class for the intercepted invocations.
+     */
+    public static class SecuredService {
+
+        public void unannotated() {
+        }
+
+        @RequiresAuthentication
+        public void authenticated() {
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.shiro.authz.aop;
 import org.apache.shiro.authz.UnauthenticatedException;
 import org.apache.shiro.authz.annotation.Logical;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
 import org.apache.shiro.test.SecurityManagerTestSupport;
 import org.junit.jupiter.api.Test;
 
@@ -91,4 +92,32 @@ public class PermissionAnnotationHandlerTest extends SecurityManagerTestSupport
         });
     }
 
+    @Test
+    public void testGuestPreResolvedPermissionAssertion() {
+        PermissionAnnotationHandler handler = new PermissionAnnotationHandler();
+        handler.setPermissionResolver(new WildcardPermissionResolver());
+
+        Annotation requiresPermissionAnnotation = new RequiresPermissions() {
+            @Override
+            public String[] value() {
+                return new String[] {"test:test", "test2:test2"};
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return RequiresPermissions.class;
+            }
+
+            @Override
+            public Logical logical() {
+                return Logical.OR;
+            }
+        };
+
+        runWithSubject(subject -> {
+            assertThatExceptionOfType(UnauthenticatedException.class).isThrownBy(() ->
+                handler.assertAuthorized(requiresPermissionAnnotation));
+        });
+    }
+
 }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test cases for the {@link CompiledPermissions} class.
+ */
+public class CompiledPermissionsTest {
+
+    private static final int MEMO_SIZE = 10;
+
+    @Test
+    void testAllPermissionImpliesEverything() {
+        CompiledPermissions compiled = CompiledPermissions.of(List.of(new WildcardPermission("printer:print"),
+                new AllPermission()));
+        assertThat(compiled.implies(new WildcardPermission("document:read:1"))).isTrue();
+        assertThat(compiled.implies(new TestPermission())).isTrue();
+    }
+
+    @Test
+    void testWildcardOnlyPermissionImpliesWildcardPermissions() {
+        for (String wildcard : Arrays.asList("*", "*:*", "*:*:*")) {
+            CompiledPermissions compiled = CompiledPermissions.of(List.of(new WildcardPermission(wildcard)));
+            assertThat(compiled.implies(new WildcardPermission("document"))).isTrue();
+            assertThat(compiled.implies(new WildcardPermission("document:read:1:2"))).isTrue();
+            assertThat(compiled.implies(new TestPermission())).isFalse();
+        }
+    }
+
+    @Test
+    void testPartialWildcardIsNotUniversal() {
+        CompiledPermissions compiled = CompiledPermissions.of(List.of(new WildcardPermission("*:read")));
+        assertThat(compiled.implies(new WildcardPermission("document:read"))).isTrue();
+        assertThat(compiled.implies(new WildcardPermission("document:write"))).isFalse();
+    }
+
+    @Test
+    void testSharedPermissionsAreReferenced() {
+        CompiledPermissions role = CompiledPermissions.of(List.of(new WildcardPermission("document:read")));
+        assertThat(CompiledPermissions.of(null, List.of(role))).isSameAs(role);
+
+        CompiledPermissions account = CompiledPermissions.of(List.of(new WildcardPermission("printer:print")),
+                List.of(role, role, CompiledPermissions.of(List.of(new AllPermission()))));
+        assertThat(account.implies(new TestPermission())).isTrue();
+        assertThat(account).hasSize(3).contains(new WildcardPermission("document:read"));
+    }
+
+    @Test
+    void testPrecomputedCatalogDecisions() {
+        PermissionCatalog catalog = new PermissionCatalog();
+        PermissionKey read = catalog.register("document:read");
+        PermissionKey write = catalog.register("document:write");
+        assertThat(catalog.register("document:read")).isSameAs(read);
+        assertThat(catalog.getKey("document:write")).isSameAs(write);
+
+        CompiledPermissions compiled = CompiledPermissions.of(List.of(new WildcardPermission("document:read,print")))
+                .precompute(catalog);
+        assertThat(compiled.implies(read)).isTrue();
+        assertThat(compiled.implies(write)).isFalse();
+
+        //keys registered later, and keys of other catalogs, are checked as usual:
+        PermissionKey print = catalog.register("document:print");
+        assertThat(compiled.implies(print)).isTrue();
+        assertThat(compiled.implies(new PermissionCatalog().register("document:write"))).isFalse();
+        assertThat(compiled.implies(new PermissionCatalog().register("document:read"))).isTrue();
+    }
+
+    @Test
+    void testDecisionsHeldByCopies() {
+        PermissionCatalog catalog = new PermissionCatalog();
+        PermissionKey read = catalog.register("document:read");
+        CompiledPermissions role = CompiledPermissions.of(List.of(new WildcardPermission("document:read")));
+        CompiledPermissions account = CompiledPermissions.of(null, List.of(role));
+        assertThat(account).isSameAs(role);
+
+        //precomputing or memoizing never changes the (shared) instance itself:
+        CompiledPermissions precomputed = account.precompute(catalog).memoizeDecisions(MEMO_SIZE);
+        assertThat(precomputed).isNotSameAs(role).isEqualTo(role);
+        assertThat(precomputed.implies(read)).isTrue();
+        assertThat(CompiledPermissions.empty().precompute(catalog)).isNotSameAs(CompiledPermissions.empty());
+        assertThat(CompiledPermissions.empty().precompute(catalog).implies(read)).isFalse();
+        assertThat(role.precompute(null)).isSameAs(role);
+        assertThat(role.memoizeDecisions(0)).isSameAs(role);
+
+        //an instance evaluated against another catalog keeps answering correctly:
+        PermissionCatalog other = new PermissionCatalog();
+        PermissionKey otherRead = other.register("document:read");
+        CompiledPermissions otherPrecomputed = role.precompute(other);
+        assertThat(otherPrecomputed.implies(otherRead)).isTrue();
+        assertThat(precomputed.implies(read)).isTrue();
+    }
+
+    /**
+     * A permission that is not a {@code WildcardPermission}.
+     */
+    private static final class TestPermission implements Permission {
+        @Override
+        public boolean implies(Permission p) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test cases for the {@link InstanceSetPermission} class.
+ */
+public class InstanceSetPermissionTest {
+
+    private static final int INSTANCES = 100000;
+
+    @Test
+    void testNumericInstances() {
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < INSTANCES; i += 2) {
+            ids.add(Integer.toString(i));
+        }
+        InstanceSetPermission p = new InstanceSetPermission("document", "read,write", ids);
+        assertThat(p.getInstanceCount()).isEqualTo(INSTANCES / 2);
+
+        assertThat(p.implies(new WildcardPermission("document:read:4242"))).isTrue();
+        assertThat(p.implies(new WildcardPermission("document:read,write:0,99998"))).isTrue();
+        assertThat(p.implies(new WildcardPermission("document:read:4242:page1"))).isTrue();
+        assertThat(p.implies(new WildcardPermission("document:read:4243"))).isFalse();
+        assertThat(p.implies(new WildcardPermission("document:read:4242,4243"))).isFalse();
+        assertThat(p.implies(new WildcardPermission("document:read:04242"))).isFalse();
+        assertThat(p.implies(new WildcardPermission("document:delete:4242"))).isFalse();
+        assertThat(p.implies(new WildcardPermission("printer:read:4242"))).isFalse();
+        assertThat(p.implies(new WildcardPermission("document:read:*"))).isFalse();
+        assertThat(p.implies(new WildcardPermission("document:read"))).isFalse();
+    }
+
+    @Test
+    void testStringInstances() {
+        InstanceSetPermission p = new InstanceSetPermission("Document", "*", List.of("Alpha", "beta", "42"));
+        assertThat(p.implies(new WildcardPermission("document:read:alpha"))).isTrue();
+        assertThat(p.implies(new WildcardPermission("DOCUMENT:delete:BETA,42"))).isTrue();
+        assertThat(p.implies(new WildcardPermission("document:read:gamma"))).isFalse();
+
+        InstanceSetPermission caseSensitive = new InstanceSetPermission("document", "read", List.of("Alpha"), true);
+        assertThat(caseSensitive.implies(new WildcardPermission("document:read:Alpha", true))).isTrue();
+        assertThat(caseSensitive.implies(new WildcardPermission("document:read:alpha", true))).isFalse();
+    }
+
+    @Test
+    void testImpliesInstanceSubset() {
+        InstanceSetPermission all = new InstanceSetPermission("document", "read,write", List.of("1", "2", "x"));
+        assertThat(all.implies(new InstanceSetPermission("document", "read", List.of("2", "x")))).isTrue();
+        assertThat(all.implies(new InstanceSetPermission("document", "read", List.of("2", "3")))).isFalse();
+        assertThat(all.implies(new InstanceSetPermission("document", "delete", List.of("1")))).isFalse();
+        assertThat(new InstanceSetPermission("document", "read", List.of("2", "1")))
+                .isEqualTo(new InstanceSetPermission("document", "READ", List.of("1", "2", "1")));
+    }
+
+    @Test
+    void testCompiledWithOtherPermissions() {
+        CompiledPermissions compiled = CompiledPermissions.of(List.of(new WildcardPermission("printer:print"),
+                new InstanceSetPermission("document", "read", List.of("7", "11"))));
+        assertThat(compiled.implies(new WildcardPermission("document:read:11"))).isTrue();
+        assertThat(compiled.implies(new WildcardPermission("document:read:12"))).isFalse();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @since 3.1.0
+ */
+public class PermissionIndexTest {
+
+    private static final int INSTANCE_COUNT = 100;
+
+    private static final List<String> GRANTED = Arrays.asList(
+            "newsletter:view",
+            "newsletter:edit,create:12,13",
+            "printer:*:lp7200",
+            "document:read:*",
+            "document:*:*:archive",
+            "report",
+            "user:*",
+            "audit:read,write",
+            "*:view:public");
+
+    private static final List<String> QUERIES = Arrays.asList(
+            "newsletter", "newsletter:view", "newsletter:view:12", "newsletter:edit", "newsletter:edit:12",
+            "newsletter:edit,create:12", "newsletter:edit:14", "newsletter:delete:12",
+            "printer:print:lp7200", "printer:print", "printer:print:epsoncolor", "printer:*:lp7200",
+            "document:read", "document:read:42", "document:write:42", "document:write:42:archive",
+            "document:write:42:current", "report", "report:anything:at:all", "user", "user:delete:7",
+            "audit:read", "audit:write", "audit:read,write", "audit:read,delete", "audit",
+            "stats:view:public", "stats:view:private", "stats:view", "*", "*:*");
+
+    @Test
+    void testMatchesWildcardPermissionImplies() {
+        List<Permission> granted = new ArrayList<Permission>();
+        for (String permission : GRANTED) {
+            granted.add(new WildcardPermission(permission));
+        }
+        PermissionIndex index = new PermissionIndex(granted);
+        assertThat(index.size()).isEqualTo(GRANTED.size());
+
+        for (String query : QUERIES) {
+            Permission permission = new WildcardPermission(query);
+            boolean expected = false;
+            for (Permission p : granted) {
+                expected |= p.implies(permission);
+            }
+            assertThat(index.implies(permission)).as(query).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void testWildcardRemainder() {
+        PermissionIndex index = new PermissionIndex(Collections.singletonList(new WildcardPermission("a:*:*")));
+        assertThat(index.implies(new WildcardPermission("a"))).isTrue();
+        assertThat(index.implies(new WildcardPermission("a:b"))).isTrue();
+        assertThat(index.implies(new WildcardPermission("a:b:c:d"))).isTrue();
+        assertThat(index.implies(new WildcardPermission("b"))).isFalse();
+
+        index = new PermissionIndex(Collections.singletonList(new WildcardPermission("a:*:c")));
+        assertThat(index.implies(new WildcardPermission("a"))).isFalse();
+        assertThat(index.implies(new WildcardPermission("a:b:c"))).isTrue();
+    }
+
+    @Test
+    void testNonIndexablePermissionsIgnored() {
+        PermissionIndex index = new PermissionIndex(Arrays.asList(new AllPermission(), new WildcardPermission("a:b")));
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.implies(new AllPermission())).isFalse();
+        assertThat(PermissionIndex.isIndexable(new AllPermission())).isFalse();
+        assertThat(PermissionIndex.isIndexable(new DomainPermission("read"))).isTrue();
+        assertThat(PermissionIndex.isIndexable(new WildcardPermission("a") {
+            @Override
+            public boolean implies(Permission p) {
+                return true;
+            }
+        })).isFalse();
+    }
+
+    @Test
+    void testCompiledPermissionsUseIndex() {
+        List<Permission> granted = new ArrayList<Permission>();
+        for (int i = 0; i < INSTANCE_COUNT; i++) {
+            granted.add(new WildcardPermission("document:read:" + i));
+        }
+        granted.add(new AllPermissionFor("special"));
+        CompiledPermissions compiled = CompiledPermissions.of(granted);
+
+        assertThat(compiled).hasSize(INSTANCE_COUNT + 1);
+        assertThat(compiled.implies(new WildcardPermission("document:read:42"))).isTrue();
+        assertThat(compiled.implies(new WildcardPermission("document:read:420"))).isFalse();
+        assertThat(compiled.implies(new WildcardPermission("special:anything"))).isTrue();
+    }
+
+    /**
+     * Non-indexable permission implying any wildcard permission in a given domain.
+     */
+    private static final class AllPermissionFor implements Permission {
+
+        private final String domain;
+
+        AllPermissionFor(String domain) {
+            this.domain = domain;
+        }
+
+        public boolean implies(Permission p) {
+            return p.toString().startsWith(domain + ":");
+        }
+    }
+}
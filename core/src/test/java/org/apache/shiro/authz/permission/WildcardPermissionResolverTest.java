@@ -18,6 +18,7 @@
  */
 package org.apache.shiro.authz.permission;
 
+import org.apache.shiro.authz.Permission;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,4 +65,30 @@ public class WildcardPermissionResolverTest {
         assertThat(resolver.isCaseSensitive()).as("Sensitivity should be false").isFalse();
     }
 
+    @Test
+    void testPermissionCacheDisabledByDefault() {
+        WildcardPermissionResolver resolver = new WildcardPermissionResolver();
+        assertThat(resolver.getPermissionCacheSize()).isZero();
+        assertThat(resolver.resolvePermission("foo:bar")).isNotSameAs(resolver.resolvePermission("foo:bar"));
+        assertThat(resolver.getPermissionCacheHits()).isZero();
+        assertThat(resolver.getPermissionCacheMisses()).isZero();
+    }
+
+    @Test
+    void testPermissionCache() {
+        WildcardPermissionResolver resolver = new WildcardPermissionResolver();
+        resolver.setPermissionCacheSize(2);
+
+        Permission permission = resolver.resolvePermission("foo:bar");
+        assertThat(resolver.resolvePermission("foo:bar")).isSameAs(permission);
+        assertThat(resolver.getPermissionCacheHits()).isEqualTo(1);
+        assertThat(resolver.getPermissionCacheMisses()).isEqualTo(1);
+
+        resolver.resolvePermission("foo:baz");
+        resolver.resolvePermission("foo:qux");
+        assertThat(resolver.getPermissionCacheMisses()).isEqualTo(3);
+
+        resolver.setCaseSensitive(true);
+        assertThat(resolver.resolvePermission("Foo:bar").toString()).isEqualTo("Foo:bar");
+    }
 }
@@ -18,8 +18,20 @@
  */
 package org.apache.shiro.authz.permission;
 
+import org.apache.shiro.authz.Permission;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOfType;
 
@@ -28,6 +40,11 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOf
  */
 public class WildcardPermissionTest {
 
+    /**
+     * The serialVersionUID of the original {@code List<Set<String>>} based implementation.
+     */
+    private static final long ORIGINAL_SERIAL_VERSION_UID = 8500703358315979658L;
+
     @Test
     void testNull() {
         assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> {
@@ -277,4 +294,85 @@ public class WildcardPermissionTest {
         assertThat(p4.implies(p2)).isFalse();
         assertThat(p4.implies(p3)).isFalse();
     }
+
+    @Test
+    void testEqualsAndHashCodeIgnoreSubpartOrder() {
+        WildcardPermission p1 = new WildcardPermission("newsletter:view,edit:12,13");
+        WildcardPermission p2 = new WildcardPermission("newsletter:edit,view,edit:13,12");
+        assertThat(p1).isEqualTo(p2);
+        assertThat(p1.hashCode()).isEqualTo(p2.hashCode());
+        assertThat(p2.toString()).isEqualTo("newsletter:edit,view:13,12");
+        assertThat(p1).isNotEqualTo(new WildcardPermission("newsletter:view:12,13"));
+
+        List<Set<String>> parts = Arrays.<Set<String>>asList(
+                new LinkedHashSet<String>(Arrays.asList("newsletter")),
+                new LinkedHashSet<String>(Arrays.asList("view", "edit")),
+                new LinkedHashSet<String>(Arrays.asList("12", "13")));
+        assertThat(p1.hashCode()).isEqualTo(parts.hashCode());
+        assertThat(p1.getParts()).isEqualTo(parts);
+    }
+
+    @Test
+    void testGetPartsReturnsLiveParts() {
+        WildcardPermission parsed = new WildcardPermission("newsletter:view");
+        List<Set<String>> parsedParts = parsed.getParts();
+        assertThat(parsed.getParts()).isSameAs(parsedParts);
+
+        //changes to the returned parts are reflected by the permission:
+        parsedParts.get(1).add("edit");
+        assertThat(parsed.implies(new WildcardPermission("newsletter:edit"))).isTrue();
+        assertThat(parsed).isEqualTo(new WildcardPermission("newsletter:view,edit"));
+        assertThat(parsed.hashCode()).isEqualTo(new WildcardPermission("newsletter:view,edit").hashCode());
+        assertThat(parsed.toString()).isEqualTo("newsletter:view,edit");
+        assertThat(PermissionIndex.isIndexable(parsed)).isFalse();
+        assertThat(CompiledPermissions.of(Arrays.<Permission>asList(parsed))
+                .implies(new WildcardPermission("newsletter:edit"))).isTrue();
+
+        List<Set<String>> parts = new ArrayList<Set<String>>();
+        parts.add(new LinkedHashSet<String>(Arrays.asList("newsletter")));
+        parts.add(new LinkedHashSet<String>(Arrays.asList("view", "edit")));
+        WildcardPermission permission = new WildcardPermission();
+        permission.setParts(parts);
+        assertThat(permission.getParts()).isSameAs(parts);
+
+        //as are changes to the parts given to setParts:
+        assertThat(permission.implies(new WildcardPermission("newsletter:delete"))).isFalse();
+        parts.get(1).add("delete");
+        assertThat(permission.implies(new WildcardPermission("newsletter:delete"))).isTrue();
+        assertThat(new WildcardPermission("newsletter:*").implies(permission)).isTrue();
+        assertThat(new WildcardPermission("newsletter:view").implies(permission)).isFalse();
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        assertThat(ObjectStreamClass.lookup(WildcardPermission.class).getSerialVersionUID())
+                .isEqualTo(ORIGINAL_SERIAL_VERSION_UID);
+
+        WildcardPermission permission = new WildcardPermission("newsletter:view,edit:*");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(permission);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            WildcardPermission read = (WildcardPermission) in.readObject();
+            assertThat(read).isEqualTo(permission);
+            assertThat(read.hashCode()).isEqualTo(permission.hashCode());
+            assertThat(read.toString()).isEqualTo(permission.toString());
+            assertThat(read.implies(new WildcardPermission("newsletter:edit:12"))).isTrue();
+        }
+    }
+
+    @Test
+    void testOverriddenGetParts() {
+        WildcardPermission custom = new WildcardPermission("ignored") {
+            @Override
+            protected List<Set<String>> getParts() {
+                return new WildcardPermission("newsletter:*").getParts();
+            }
+        };
+        Permission query = new WildcardPermission("newsletter:edit");
+        assertThat(custom.implies(query)).isTrue();
+        assertThat(new WildcardPermission("newsletter:edit,view").implies(custom)).isFalse();
+        assertThat(new WildcardPermission("newsletter").implies(custom)).isTrue();
+    }
 }
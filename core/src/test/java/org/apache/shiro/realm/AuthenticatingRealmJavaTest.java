@@ -19,23 +19,30 @@
 package org.apache.shiro.realm;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.times;
 
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.IncorrectCredentialsException;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authc.credential.CredentialsMatcher;
 import org.apache.shiro.authc.credential.DefaultPasswordService;
 import org.apache.shiro.authc.credential.PasswordMatcher;
+import org.apache.shiro.authc.credential.SimpleCredentialsMatcher;
 import org.apache.shiro.crypto.hash.DefaultHashService;
 import org.apache.shiro.crypto.hash.Hash;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class AuthenticatingRealmJavaTest {
 
+    private static final long VERIFIED_CREDENTIALS_TIME_TO_LIVE = 60000L;
+
     @Test
     @DisplayName("should create Argon2 hash when user does not exist")
     void authenticatingRealmShouldCreateArgonHashWhenUserDoesNotExist() {
@@ -89,6 +96,42 @@ public class AuthenticatingRealmJavaTest {
                 .matches(name -> name.contains("Argon") || name.contains("BCrypt"));
     }
 
+    @Test
+    @DisplayName("should skip the credentials matcher for recently verified credentials")
+    void authenticatingRealmShouldRememberVerifiedCredentials() {
+        // given
+        AtomicInteger matches = new AtomicInteger();
+        SimpleAccountRealm realm = new SimpleAccountRealm();
+        realm.setCredentialsMatcher(new SimpleCredentialsMatcher() {
+            @Override
+            public boolean doCredentialsMatch(AuthenticationToken token, AuthenticationInfo info) {
+                matches.incrementAndGet();
+                return super.doCredentialsMatch(token, info);
+            }
+        });
+        realm.setVerifiedCredentialsCacheTimeToLive(VERIFIED_CREDENTIALS_TIME_TO_LIVE);
+        realm.addAccount("username", "password");
+
+        // when
+        realm.getAuthenticationInfo(new UsernamePasswordToken("username", "password"));
+        realm.getAuthenticationInfo(new UsernamePasswordToken("username", "password"));
+
+        // then
+        assertThat(matches.get()).isEqualTo(1);
+        assertThatThrownBy(() -> realm.getAuthenticationInfo(new UsernamePasswordToken("username", "wrong")))
+                .isInstanceOf(IncorrectCredentialsException.class);
+        assertThatThrownBy(() -> realm.getAuthenticationInfo(new UsernamePasswordToken("username", "wrong")))
+                .isInstanceOf(IncorrectCredentialsException.class);
+        assertThat(matches.get()).isEqualTo(3);
+
+        // a password change invalidates remembered verifications:
+        realm.addAccount("username", "changed");
+        assertThatThrownBy(() -> realm.getAuthenticationInfo(new UsernamePasswordToken("username", "password")))
+                .isInstanceOf(IncorrectCredentialsException.class);
+        realm.getAuthenticationInfo(new UsernamePasswordToken("username", "changed"));
+        assertThat(matches.get()).isEqualTo(5);
+    }
+
     /**
      * For the test, it is important that this class returns {@code null} for
      * {@link AuthenticatingRealm#doGetAuthenticationInfo(AuthenticationToken)},
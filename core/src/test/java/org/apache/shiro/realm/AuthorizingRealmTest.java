@@ -24,6 +24,14 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.shiro.authc.AuthenticationException;
 
@@ -36,13 +44,17 @@ import org.apache.shiro.authc.SimpleAccount;
 import org.apache.shiro.authc.SimpleAuthenticationInfo;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authc.credential.AllowAllCredentialsMatcher;
+import org.apache.shiro.authz.AuthorizationDecisions;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
 import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.permission.CompiledPermissions;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.authz.permission.WildcardPermission;
 import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.cache.MapCache;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
 import org.apache.shiro.subject.ImmutablePrincipalCollection;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.junit.jupiter.api.AfterEach;
@@ -62,6 +74,9 @@ public class AuthorizingRealmTest {
     private static final String PASSWORD = "password";
     private static final int USER_ID = 12345;
     private static final String ROLE = "admin";
+    private static final int CONCURRENT_CALLERS = 8;
+    private static final long QUEUE_UP_MILLIS = 200;
+    private static final long EXPIRATION_WAIT_MILLIS = 20;
     private final String localhost = "localhost";
 
     private AuthorizingRealm realm;
@@ -258,6 +273,368 @@ public class AuthorizingRealmTest {
         assertThat(permissions).hasSize(4);
     }
 
+    @Test
+    void testCachedAuthorizationInfoPermissionsCompiledOnce() {
+        Principal principal = new UsernamePrincipal("compiledPerms");
+        PrincipalCollection pCollection = ImmutablePrincipalCollection.ofSinglePrincipal(principal,
+                "testCachedAuthorizationInfoPermissionsCompiledOnce");
+        final AtomicInteger roleResolutions = new AtomicInteger();
+
+        AuthorizingRealm realm = new AllowAllRealm();
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setRolePermissionResolver(new RolePermissionResolver() {
+            public Collection<Permission> resolvePermissionsInRole(String roleString) {
+                roleResolutions.incrementAndGet();
+                Collection<Permission> permissions = new HashSet<Permission>();
+                permissions.add(new WildcardPermission(roleString + ":perm1"));
+                return permissions;
+            }
+        });
+
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm2")).isFalse();
+        assertThat(realm.isPermittedAll(pCollection, ROLE + ":perm1", ROLE + ":perm1:foo")).isTrue();
+        assertThat(roleResolutions.get()).isEqualTo(1);
+
+        AuthorizationInfo info = realm.getAuthorizationInfo(pCollection);
+        Collection<Permission> permissions = realm.getPermissions(info);
+        assertThat(permissions).isInstanceOf(CompiledPermissions.class);
+        assertThat(realm.getPermissions(info)).isSameAs(permissions);
+
+        realm.clearCachedAuthorizationInfo(pCollection);
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+        assertThat(roleResolutions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testCopiedAuthorizationInfoPermissionsCompiledOnce() {
+        PrincipalCollection pCollection = ImmutablePrincipalCollection.ofSinglePrincipal(
+                new UsernamePrincipal("copiedPerms"), "testCopiedAuthorizationInfoPermissionsCompiledOnce");
+        final AtomicInteger roleResolutions = new AtomicInteger();
+
+        AuthorizingRealm realm = new AllowAllRealm();
+        //like a serializing or distributed cache, every lookup returns a new copy of the cached entry:
+        realm.setAuthorizationCache(new MapCache<Object, AuthorizationInfo>("copying",
+                new ConcurrentHashMap<Object, AuthorizationInfo>()) {
+            @Override
+            public AuthorizationInfo get(Object key) {
+                AuthorizationInfo info = super.get(key);
+                return info == null ? null : new SimpleAuthorizationInfo(new HashSet<String>(info.getRoles()));
+            }
+        });
+        realm.setRolePermissionResolver(new RolePermissionResolver() {
+            public Collection<Permission> resolvePermissionsInRole(String roleString) {
+                roleResolutions.incrementAndGet();
+                Collection<Permission> permissions = new HashSet<Permission>();
+                permissions.add(new WildcardPermission(roleString + ":perm1"));
+                return permissions;
+            }
+        });
+
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm2")).isFalse();
+        assertThat(roleResolutions.get()).isEqualTo(1);
+
+        AuthorizationInfo first = realm.getAuthorizationInfo(pCollection);
+        AuthorizationInfo second = realm.getAuthorizationInfo(pCollection);
+        assertThat(second).isNotSameAs(first);
+        assertThat(realm.getPermissions(second)).isSameAs(realm.getPermissions(first));
+
+        realm.clearCachedAuthorizationInfo(pCollection);
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+        assertThat(roleResolutions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testUncachedAuthorizationInfoPermissionsCompiledPerCall() {
+        Principal principal = new UsernamePrincipal("uncachedPerms");
+        PrincipalCollection pCollection = ImmutablePrincipalCollection.ofSinglePrincipal(principal,
+                "testUncachedAuthorizationInfoPermissionsCompiledPerCall");
+        final AtomicInteger roleResolutions = new AtomicInteger();
+
+        AuthorizingRealm realm = new AllowAllRealm();
+        realm.setRolePermissionResolver(new RolePermissionResolver() {
+            public Collection<Permission> resolvePermissionsInRole(String roleString) {
+                roleResolutions.incrementAndGet();
+                Collection<Permission> permissions = new HashSet<Permission>();
+                permissions.add(new WildcardPermission(roleString + ":perm1"));
+                return permissions;
+            }
+        });
+
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+        assertThat(roleResolutions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testRolePermissionsSharedBetweenAccounts() {
+        PrincipalCollection first = ImmutablePrincipalCollection.ofSinglePrincipal(
+                new UsernamePrincipal("firstAccount"), "testRolePermissionsSharedBetweenAccounts");
+        PrincipalCollection second = ImmutablePrincipalCollection.ofSinglePrincipal(
+                new UsernamePrincipal("secondAccount"), "testRolePermissionsSharedBetweenAccounts");
+        final AtomicInteger roleResolutions = new AtomicInteger();
+
+        AuthorizingRealm realm = new AllowAllRealm();
+        realm.setRolePermissionResolverCachingEnabled(true);
+        realm.setRolePermissionResolver(new RolePermissionResolver() {
+            public Collection<Permission> resolvePermissionsInRole(String roleString) {
+                roleResolutions.incrementAndGet();
+                Collection<Permission> permissions = new HashSet<Permission>();
+                permissions.add(new WildcardPermission(roleString + ":perm1"));
+                return permissions;
+            }
+        });
+
+        assertThat(realm.isPermitted(first, ROLE + ":perm1")).isTrue();
+        assertThat(realm.isPermitted(second, ROLE + ":perm1")).isTrue();
+        assertThat(realm.isPermitted(second, ROLE + ":perm2")).isFalse();
+        assertThat(realm.getPermissions(realm.getAuthorizationInfo(first)))
+                .contains(new WildcardPermission(ROLE + ":perm1"));
+        assertThat(roleResolutions.get()).isEqualTo(1);
+
+        realm.clearCachedRolePermissions();
+        assertThat(realm.isPermitted(first, ROLE + ":perm1")).isTrue();
+        assertThat(roleResolutions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testAuthorizationDecisionsMemoized() {
+        PrincipalCollection pCollection = ImmutablePrincipalCollection.ofSinglePrincipal(
+                new UsernamePrincipal("memoized"), "testAuthorizationDecisionsMemoized");
+        final AtomicInteger impliesCalls = new AtomicInteger();
+        final Permission granted = new WildcardPermission(ROLE + ":perm1");
+
+        AuthorizingRealm realm = new AllowAllRealm();
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setAuthorizationDecisionMemoSize(2);
+        realm.setRolePermissionResolver(roleString -> List.of((Permission) p -> {
+            impliesCalls.incrementAndGet();
+            return granted.implies(p);
+        }));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+            assertThat(realm.isPermitted(pCollection, ROLE + ":perm2")).isFalse();
+        }
+        assertThat(impliesCalls.get()).isEqualTo(2);
+
+        //a full memo is emptied:
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm3")).isFalse();
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm1")).isTrue();
+        assertThat(impliesCalls.get()).isEqualTo(4);
+
+        //the memo is discarded along with the cached AuthorizationInfo:
+        realm.clearCachedAuthorizationInfo(pCollection);
+        assertThat(realm.isPermitted(pCollection, ROLE + ":perm3")).isFalse();
+        assertThat(impliesCalls.get()).isEqualTo(5);
+    }
+
+    @Test
+    void testConcurrentCacheMissesLoadAuthorizationInfoOnce() throws Exception {
+        PrincipalCollection pCollection = ImmutablePrincipalCollection.ofSinglePrincipal(
+                new UsernamePrincipal("stampede"), "testConcurrentCacheMissesLoadAuthorizationInfoOnce");
+        final AtomicInteger lookups = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+                lookups.incrementAndGet();
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.doGetAuthorizationInfo(principals);
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < CONCURRENT_CALLERS; i++) {
+                results.add(executor.submit(() -> realm.hasRole(pCollection, ROLE)));
+            }
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            //give the other callers time to queue up behind the loading one:
+            Thread.sleep(QUEUE_UP_MILLIS);
+            release.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(lookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testAuthorizationCacheTimeToLiveAndRefreshAhead() throws Exception {
+        PrincipalCollection pCollection = ImmutablePrincipalCollection.ofSinglePrincipal(
+                new UsernamePrincipal("refreshed"), "testAuthorizationCacheTimeToLiveAndRefreshAhead");
+        final AtomicInteger lookups = new AtomicInteger();
+
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+                Set<String> roles = new HashSet<String>();
+                roles.add("version" + lookups.incrementAndGet());
+                return new SimpleAuthorizationInfo(roles);
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+
+        //without a time-to-live the cached entry is used indefinitely:
+        assertThat(realm.hasRole(pCollection, "version1")).isTrue();
+        assertThat(realm.hasRole(pCollection, "version1")).isTrue();
+        assertThat(lookups.get()).isEqualTo(1);
+
+        //expired entries are reloaded on the calling thread, entries loaded before a time-to-live was set start
+        //aging when they are first seen:
+        realm.setAuthorizationCacheTimeToLive(1);
+        assertThat(realm.hasRole(pCollection, "version1")).isTrue();
+        Thread.sleep(EXPIRATION_WAIT_MILLIS);
+        assertThat(realm.hasRole(pCollection, "version2")).isTrue();
+        assertThat(lookups.get()).isEqualTo(2);
+
+        //entries within the refresh-ahead window are returned while being reloaded in the background:
+        realm.setAuthorizationCacheTimeToLive(TimeUnit.MINUTES.toMillis(1));
+        realm.setAuthorizationCacheRefreshAhead(TimeUnit.MINUTES.toMillis(1));
+        realm.setCacheRefreshExecutor(Runnable::run);
+        assertThat(realm.hasRole(pCollection, "version2")).isTrue();
+        assertThat(lookups.get()).isEqualTo(3);
+        assertThat(realm.hasRole(pCollection, "version3")).isTrue();
+    }
+
+    @Test
+    void testAuthenticationCacheTimeToLive() throws Exception {
+        final AtomicInteger lookups = new AtomicInteger();
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+                lookups.incrementAndGet();
+                return super.doGetAuthenticationInfo(token);
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setAuthenticationCachingEnabled(true);
+        UsernamePasswordToken token = new UsernamePasswordToken(USERNAME, PASSWORD, localhost);
+
+        realm.getAuthenticationInfo(token);
+        realm.getAuthenticationInfo(token);
+        assertThat(lookups.get()).isEqualTo(1);
+
+        realm.setAuthenticationCacheTimeToLive(1);
+        realm.getAuthenticationInfo(token);
+        assertThat(lookups.get()).isEqualTo(1);
+        Thread.sleep(EXPIRATION_WAIT_MILLIS);
+        realm.getAuthenticationInfo(token);
+        assertThat(lookups.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testBatchedChecksUseOverriddenPermissionCheck() {
+        PrincipalCollection pCollection = ImmutablePrincipalCollection.ofSinglePrincipal(
+                new UsernamePrincipal("overridden"), "testBatchedChecksUseOverriddenPermissionCheck");
+        final Permission granted = new WildcardPermission("override:*");
+
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+                return granted.implies(permission);
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+
+        assertThat(realm.isPermitted(pCollection, "override:read")).isTrue();
+        assertThat(realm.isPermitted(pCollection, "other:read")).isFalse();
+        assertArrayEquals(new boolean[] {true, false}, realm.isPermitted(pCollection, "override:read", "other:read"));
+        assertArrayEquals(new boolean[] {true, false}, realm.isPermitted(pCollection,
+                List.<Permission>of(new WildcardPermission("override:read"), new WildcardPermission("other:read"))));
+        assertThat(realm.isPermittedAll(pCollection, "override:read", "override:write")).isTrue();
+        assertThat(realm.isPermittedAll(pCollection, "override:read", "other:read")).isFalse();
+
+        AuthorizationDecisions decisions = realm.getAuthorizationDecisions(pCollection,
+                List.of("override:read", "other:read"), List.of(ROLE));
+        assertThat(decisions.isPermitted("override:read")).isTrue();
+        assertThat(decisions.isPermitted("other:read")).isFalse();
+        assertThat(decisions.hasRole(ROLE)).isTrue();
+
+        assertThat(realm.filterPermitted(pCollection, "override", List.of("a", "b"))).containsExactly("a", "b");
+        assertThat(realm.filterPermitted(pCollection, "other", List.of("a", "b"))).isEmpty();
+    }
+
+    @Test
+    void testAuthenticationRefreshDoesNotRetainCredentials() throws Exception {
+        final List<AuthenticationToken> lookups = new ArrayList<AuthenticationToken>();
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+                lookups.add(token);
+                return super.doGetAuthenticationInfo(token);
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setAuthenticationCachingEnabled(true);
+        realm.setAuthenticationCacheTimeToLive(TimeUnit.MINUTES.toMillis(1));
+        realm.setAuthenticationCacheRefreshAhead(TimeUnit.MINUTES.toMillis(1));
+        realm.setCacheRefreshExecutor(Runnable::run);
+        UsernamePasswordToken token = new UsernamePasswordToken(USERNAME, PASSWORD, true, localhost);
+
+        realm.getAuthenticationInfo(token);
+        realm.getAuthenticationInfo(token);
+        assertThat(lookups).hasSize(2);
+        assertThat(lookups.get(0)).isSameAs(token);
+
+        UsernamePasswordToken refreshToken = (UsernamePasswordToken) lookups.get(1);
+        assertThat(refreshToken).isNotSameAs(token);
+        assertThat(refreshToken.getUsername()).isEqualTo(USERNAME);
+        assertThat(refreshToken.getPassword()).isNull();
+        assertThat(refreshToken.isRememberMe()).isTrue();
+        assertThat(refreshToken.getHost()).isEqualTo(localhost);
+    }
+
+    @Test
+    void testDestroyShutsDownDefaultCacheRefreshExecutor() throws Exception {
+        final AtomicInteger destroyed = new AtomicInteger();
+        //subclasses may declare the Destroyable signature:
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            public void destroy() throws Exception {
+                destroyed.incrementAndGet();
+                super.destroy();
+            }
+        };
+        realm.setAuthorizationCacheTimeToLive(TimeUnit.MINUTES.toMillis(1));
+        realm.setAuthorizationCacheRefreshAhead(TimeUnit.SECONDS.toMillis(1));
+        realm.init();
+
+        Executor executor = realm.getAvailableCacheRefreshExecutor();
+        assertThat(executor).isInstanceOf(ExecutorService.class);
+        assertThat(realm.getAvailableCacheRefreshExecutor()).isSameAs(executor);
+
+        realm.destroy();
+        assertThat(destroyed.get()).isEqualTo(1);
+        assertThat(((ExecutorService) executor).isShutdown()).isTrue();
+        assertThat(realm.getAvailableCacheRefreshExecutor()).isNull();
+
+        //configured executors are managed by the caller:
+        ExecutorService configured = Executors.newSingleThreadExecutor();
+        try {
+            realm.setCacheRefreshExecutor(configured);
+            realm.destroy();
+            assertThat(realm.getAvailableCacheRefreshExecutor()).isSameAs(configured);
+            assertThat(configured.isShutdown()).isFalse();
+        } finally {
+            configured.shutdownNow();
+        }
+    }
+
     private void assertArrayEquals(boolean[] expected, boolean[] actual) {
         if (expected.length != actual.length) {
             fail("Expected array of length [" + expected.length + "] but received array of length [" + actual.length + "]");
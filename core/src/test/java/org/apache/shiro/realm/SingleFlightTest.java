@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link SingleFlight}.
+ */
+public class SingleFlightTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void testConcurrentLoadsShareLeaderResult() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<String, String>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> flight.load("key", () -> {
+                    loads.incrementAndGet();
+                    entered.countDown();
+                    await(release);
+                    return "value";
+                })));
+            }
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        //late arrivals may start a new flight once the first one completed, but never run concurrently with it:
+        assertThat(loads.get()).isPositive();
+        assertThat(flight.size()).isZero();
+    }
+
+    @Test
+    void testFailureEndsFlight() {
+        SingleFlight<String, String> flight = new SingleFlight<String, String>();
+        assertThatThrownBy(() -> flight.load("key", () -> {
+            throw new IllegalStateException("backend down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(flight.size()).isZero();
+        assertThat(flight.load("key", () -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    void testFailureIsSharedWithWaiters() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<String, String>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> callers = new CopyOnWriteArrayList<Thread>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    callers.add(Thread.currentThread());
+                    return flight.load("key", () -> {
+                        loads.incrementAndGet();
+                        entered.countDown();
+                        await(release);
+                        throw new IllegalStateException("backend down");
+                    });
+                }));
+            }
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            awaitParked(callers);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                        .hasCauseInstanceOf(IllegalStateException.class);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        //every caller waited on the leader and received its failure, none of them loaded again:
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.size()).isZero();
+    }
+
+    @Test
+    void testWaitersLoadAgainIfFailuresAreNotShared() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<String, String>(false);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> callers = new CopyOnWriteArrayList<Thread>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        int failures = 0;
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    callers.add(Thread.currentThread());
+                    return flight.load("key", () -> {
+                        if (loads.incrementAndGet() == 1) {
+                            entered.countDown();
+                            await(release);
+                            throw new IllegalStateException("wrong credentials");
+                        }
+                        return "value";
+                    });
+                }));
+            }
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            awaitParked(callers);
+            release.countDown();
+            for (Future<String> result : results) {
+                try {
+                    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+                } catch (ExecutionException e) {
+                    assertThat(e).hasCauseInstanceOf(IllegalStateException.class);
+                    failures++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        //only the leader failed, its waiters loaded again instead of receiving its failure:
+        assertThat(failures).isEqualTo(1);
+        assertThat(loads.get()).isGreaterThan(1);
+        assertThat(flight.size()).isZero();
+    }
+
+    private static void awaitParked(List<Thread> callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (callers.size() == THREADS && callers.stream().allMatch(SingleFlightTest::isParked)) {
+                return;
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("callers did not wait for the leader");
+    }
+
+    private static boolean isParked(Thread thread) {
+        Thread.State state = thread.getState();
+        return state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING;
+    }
+
+    @Test
+    void testReentrantLoadDoesNotDeadlock() {
+        SingleFlight<String, String> flight = new SingleFlight<String, String>();
+        String value = flight.load("key", () -> flight.load("key", () -> "inner") + "-outer");
+        assertThat(value).isEqualTo("inner-outer");
+        assertThat(flight.load(null, () -> "no key")).isEqualTo("no key");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -310,6 +310,38 @@ public class JDBCRealmTest {
         assertThat(currentUser.isPermitted("testDomain:testTarget:specialAction")).isFalse();
     }
 
+    @Test
+    void testPermissionsBatchLookup() throws Exception {
+        String testMethodName = name;
+        JdbcRealm realm = realmMap.get(testMethodName);
+        createDefaultSchema(testMethodName, false);
+        realm.setSaltStyle(JdbcRealm.SaltStyle.NO_SALT);
+        realm.setPermissionsLookupEnabled(true);
+        realm.setPermissionsBatchLookupEnabled(true);
+        //more roles than fit into one batch:
+        realm.setPermissionsBatchSize(1);
+
+        Connection conn = null;
+        Statement sql = null;
+        try {
+            conn = dsMap.get(testMethodName).getConnection();
+            sql = conn.createStatement();
+            sql.executeUpdate("insert into user_roles values ('" + username + "', 'otherRole')");
+            sql.executeUpdate("insert into roles_permissions values ('otherRole', 'otherDomain:*')");
+        } finally {
+            JdbcUtils.closeStatement(sql);
+            JdbcUtils.closeConnection(conn);
+        }
+
+        Subject.Builder builder = new Subject.Builder(securityManager);
+        Subject currentUser = builder.buildSubject();
+        UsernamePasswordToken token = new UsernamePasswordToken(username, plainTextPassword);
+        currentUser.login(token);
+        assertThat(currentUser.isPermitted(testPermissionString)).isTrue();
+        assertThat(currentUser.isPermitted("otherDomain:otherTarget")).isTrue();
+        assertThat(currentUser.isPermitted("testDomain:testTarget:specialAction")).isFalse();
+    }
+
     /**
      * Creates a realm for a test method and puts it in the realMap.
      */
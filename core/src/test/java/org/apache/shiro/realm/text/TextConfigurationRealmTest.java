@@ -256,6 +256,33 @@ public class TextConfigurationRealmTest {
         testThread.test();
     }
 
+    @Test
+    void testAuthorizationIndex() throws ParseException {
+        TextConfigurationRealm indexed = new TextConfigurationRealm();
+        indexed.setAuthorizationIndexEnabled(true);
+        indexed.setRoleDefinitions("approver = invoice:approve:tenantX\nviewer = invoice:view:*");
+        indexed.setUserDefinitions("alice = secret, approver, viewer\nbob = secret, viewer\ncarol = secret");
+        indexed.processRoleDefinitions();
+        indexed.processUserDefinitions();
+
+        assertThat(indexed.getUsernamesWithRole("viewer")).containsExactlyInAnyOrder("alice", "bob");
+        assertThat(indexed.getUsernamesPermitted("invoice:approve:tenantX")).containsExactly("alice");
+        assertThat(indexed.getUsernamesPermitted("invoice:view:tenantY")).containsExactlyInAnyOrder("alice", "bob");
+        assertThat(indexed.getUsernamesPermitted("invoice:approve:tenantY")).isEmpty();
+
+        //accounts are re-indexed as they change:
+        indexed.setUserDefinitions("carol = secret, approver");
+        indexed.processUserDefinitions();
+        indexed.addAccount("dave", "secret", "viewer");
+        assertThat(indexed.getUsernamesPermitted("invoice:approve:tenantX")).containsExactlyInAnyOrder("alice", "carol");
+        assertThat(indexed.getUsernamesWithRole("viewer")).containsExactlyInAnyOrder("alice", "bob", "dave");
+        assertThat(indexed.getUsernamesPermitted("invoice:view:tenantX")).containsExactlyInAnyOrder("alice", "bob");
+
+        //without an index the accounts are scanned:
+        indexed.setAuthorizationIndexEnabled(false);
+        assertThat(indexed.getUsernamesPermitted("invoice:approve:tenantX")).containsExactlyInAnyOrder("alice", "carol");
+    }
+
     /*
      * A Class that captures a thread's assertion error.
      */
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A small, bounded pool of {@link MessageDigest} instances per algorithm name, avoiding the provider lookup and the
+ * allocations of {@link MessageDigest#getInstance(String)} for every hash computed.
+ * <p/>
+ * Digests are {@link #borrow(String) borrowed} for a single computation and {@link #release(MessageDigest) released}
+ * once it has completed.  Unlike per-thread caching, pooled digests are shared by all threads, including virtual
+ * threads, and are never attached to container-managed threads, so they do not keep an undeployed application's
+ * classes reachable.  At most {@link #MAX_IDLE_DIGESTS} idle digests are kept per algorithm; borrowers beyond that
+ * simply get a new instance, which is discarded on release.
+ *
+ * @since 3.1.0
+ */
+final class DigestPool {
+
+    /**
+     * The maximum number of idle digests kept per algorithm.
+     */
+    static final int MAX_IDLE_DIGESTS = 16;
+
+    private static final ConcurrentMap<String, Queue<MessageDigest>> IDLE = new ConcurrentHashMap<>();
+
+    private DigestPool() {
+    }
+
+    /**
+     * Returns an idle digest for the given algorithm, or a new one if none is available.  The digest is
+     * {@link MessageDigest#reset() reset} and must be {@link #release(MessageDigest) released} when the computation
+     * it was borrowed for has completed, and not be used afterwards.
+     *
+     * @param algorithmName the name of the digest algorithm.
+     * @return a digest for the algorithm, exclusively owned by the caller until released.
+     * @throws NoSuchAlgorithmException if the algorithm is not available.
+     */
+    static MessageDigest borrow(String algorithmName) throws NoSuchAlgorithmException {
+        Queue<MessageDigest> idle = IDLE.get(algorithmName);
+        MessageDigest digest = idle != null ? idle.poll() : null;
+        return digest != null ? digest : MessageDigest.getInstance(algorithmName);
+    }
+
+    /**
+     * Resets the given digest and returns it to the pool of its algorithm, or discards it if the pool is full.
+     *
+     * @param digest a digest obtained from {@link #borrow(String)}, which the caller must no longer use.
+     */
+    static void release(MessageDigest digest) {
+        digest.reset();
+        IDLE.computeIfAbsent(digest.getAlgorithm(), name -> new ArrayBlockingQueue<>(MAX_IDLE_DIGESTS)).offer(digest);
+    }
+}
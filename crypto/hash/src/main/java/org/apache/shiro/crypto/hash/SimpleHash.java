@@ -18,6 +18,7 @@
  */
 package org.apache.shiro.crypto.hash;
 
+import org.apache.shiro.crypto.CryptoException;
 import org.apache.shiro.crypto.UnknownAlgorithmException;
 import org.apache.shiro.lang.codec.Base64;
 import org.apache.shiro.lang.codec.CodecException;
@@ -31,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -56,6 +58,24 @@ public class SimpleHash extends CodecSupport implements Hash, Serializable {
 
     private static final Logger LOG = LoggerFactory.getLogger(SimpleHash.class);
 
+    /**
+     * Whether a class overrides {@link #getDigest(String)}, in which case its digests are not taken from the pool.
+     */
+    private static final ClassValue<Boolean> DIGEST_OVERRIDDEN = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != null && c != SimpleHash.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("getDigest", String.class);
+                    return Boolean.TRUE;
+                } catch (NoSuchMethodException e) {
+                    //not declared by this class, check its superclass
+                }
+            }
+            return Boolean.FALSE;
+        }
+    };
+
     /**
      * The {@link java.security.MessageDigest MessageDigest} algorithm name to use when performing the hash.
      */
@@ -339,6 +359,10 @@ public class SimpleHash extends CodecSupport implements Hash, Serializable {
 
     /**
      * Returns the JDK MessageDigest instance to use for executing the hash.
+     * <p/>
+     * Unless a subclass overrides this method, {@link #hash(byte[], byte[], int)} does not call it and takes the
+     * digest from a small pool shared by all threads instead.  Digests returned by an overriding implementation are
+     * used as they are and never put into that pool.
      *
      * @param algorithmName the algorithm to use for the hash, provided by subclasses.
      * @return the MessageDigest object for the specified {@code algorithm}.
@@ -348,11 +372,23 @@ public class SimpleHash extends CodecSupport implements Hash, Serializable {
         try {
             return MessageDigest.getInstance(algorithmName);
         } catch (NoSuchAlgorithmException e) {
-            String msg = "No native '" + algorithmName + "' MessageDigest instance available on the current JVM.";
-            throw new UnknownAlgorithmException(msg, e);
+            throw unknownAlgorithm(algorithmName, e);
+        }
+    }
+
+    private static MessageDigest borrowDigest(String algorithmName) throws UnknownAlgorithmException {
+        try {
+            return DigestPool.borrow(algorithmName);
+        } catch (NoSuchAlgorithmException e) {
+            throw unknownAlgorithm(algorithmName, e);
         }
     }
 
+    private static UnknownAlgorithmException unknownAlgorithm(String algorithmName, NoSuchAlgorithmException e) {
+        String msg = "No native '" + algorithmName + "' MessageDigest instance available on the current JVM.";
+        return new UnknownAlgorithmException(msg, e);
+    }
+
     /**
      * Hashes the specified byte array without a salt for a single iteration.
      *
@@ -386,20 +422,29 @@ public class SimpleHash extends CodecSupport implements Hash, Serializable {
      * @throws UnknownAlgorithmException if the {@link #getAlgorithmName() algorithmName} is not available.
      */
     protected byte[] hash(byte[] bytes, byte[] salt, int hashIterations) throws UnknownAlgorithmException {
-        MessageDigest digest = getDigest(getAlgorithmName());
-        if (salt.length != 0) {
-            digest.reset();
-            digest.update(salt);
-        }
-        byte[] hashed = digest.digest(bytes);
-        //already hashed once above
-        int iterations = hashIterations - 1;
-        //iterate remaining number:
-        for (int i = 0; i < iterations; i++) {
-            digest.reset();
-            hashed = digest.digest(hashed);
+        boolean pooled = !DIGEST_OVERRIDDEN.get(getClass());
+        MessageDigest digest = pooled ? borrowDigest(getAlgorithmName()) : getDigest(getAlgorithmName());
+        try {
+            if (salt.length != 0) {
+                digest.reset();
+                digest.update(salt);
+            }
+            byte[] hashed = digest.digest(bytes);
+            //already hashed once above
+            int iterations = hashIterations - 1;
+            //iterate remaining number, digesting into the same array (the input is consumed before the output is written):
+            for (int i = 0; i < iterations; i++) {
+                digest.update(hashed);
+                digest.digest(hashed, 0, hashed.length);
+            }
+            return hashed;
+        } catch (DigestException e) {
+            throw new CryptoException("Unable to compute '" + getAlgorithmName() + "' hash iteration.", e);
+        } finally {
+            if (pooled) {
+                DigestPool.release(digest);
+            }
         }
-        return hashed;
     }
 
     @Override
@@ -28,7 +28,9 @@ import org.apache.shiro.lang.util.UnknownClassException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This default {@code HashFormatFactory} implementation heuristically determines a {@code HashFormat} class to
@@ -45,6 +47,9 @@ public class DefaultHashFormatFactory implements HashFormatFactory {
     //packages to search for HashFormat implementations
     private Set<String> searchPackages;
 
+    //MCF id - to - resolved HashFormat class (empty if none could be found)
+    private final Map<String, Optional<Class<?>>> mcfIdClasses = new ConcurrentHashMap<String, Optional<Class<?>>>();
+
     public DefaultHashFormatFactory() {
         this.searchPackages = new HashSet<String>();
         this.formatClassNames = new HashMap<String, String>();
@@ -85,6 +90,7 @@ public class DefaultHashFormatFactory implements HashFormatFactory {
      */
     public void setFormatClassNames(Map<String, String> formatClassNames) {
         this.formatClassNames = formatClassNames;
+        this.mcfIdClasses.clear();
     }
 
     /**
@@ -114,44 +120,64 @@ public class DefaultHashFormatFactory implements HashFormatFactory {
      */
     public void setSearchPackages(Set<String> searchPackages) {
         this.searchPackages = searchPackages;
+        this.mcfIdClasses.clear();
     }
 
+    /**
+     * Returns a new {@code HashFormat} instance for the given format id, class name or formatted hash string.
+     * <p/>
+     * For MCF-formatted strings (e.g. {@code $shiro2$...}) the format class is resolved once per MCF id and
+     * remembered, so that repeated lookups - usually one per password comparison - neither split the string nor
+     * probe the class loader.  The remembered classes are discarded when the
+     * {@link #setFormatClassNames(java.util.Map) formatClassNames} or
+     * {@link #setSearchPackages(java.util.Set) searchPackages} are set.
+     *
+     * @param in the format id, class name or formatted hash string.
+     * @return a new {@code HashFormat} instance, or {@code null} if no format could be found.
+     */
     @Override
     public HashFormat getInstance(String in) {
         if (in == null) {
             return null;
         }
 
-        HashFormat hashFormat = null;
-        Class<?> clazz = null;
+        Class<?> clazz;
 
         //NOTE: this code block occurs BEFORE calling getHashFormatClass(in) on purpose as a performance
         //optimization.  If the input arg is an MCF-formatted string, there will be many unnecessary ClassLoader
         //misses which can be slow.  By checking the MCF-formatted option, we can significantly improve performance
-        if (in.startsWith(ModularCryptFormat.TOKEN_DELIMITER)) {
+        String possibleMcfId = getMcfId(in);
+        if (possibleMcfId != null) {
             //odds are high that the input argument is not a fully qualified class name or a format key (e.g. 'hex',
-            //base64' or 'shiro1').  Try to find the key and lookup via that:
-            String test = in.substring(ModularCryptFormat.TOKEN_DELIMITER.length());
-            String[] tokens = test.split("\\" + ModularCryptFormat.TOKEN_DELIMITER);
-            //the MCF ID is always the first token in the delimited string:
-            String possibleMcfId = tokens.length > 0 ? tokens[0] : null;
-            if (possibleMcfId != null) {
-                //found a possible MCF ID - test it using our heuristics to see if we can find a corresponding class:
-                clazz = getHashFormatClass(possibleMcfId);
+            //base64' or 'shiro1').  Look up the class of the MCF ID, resolving it via our heuristics only once:
+            clazz = mcfIdClasses.computeIfAbsent(possibleMcfId,
+                    id -> Optional.ofNullable(getHashFormatClass(id))).orElse(null);
+            if (clazz == null) {
+                //no class for the MCF ID - use the unaltered input arg and go through our heuristics.  This depends
+                //on the whole input, so it is not cached under the MCF ID:
+                clazz = getHashFormatClass(in);
             }
-        }
-
-        if (clazz == null) {
+        } else {
             //not an MCF-formatted string - use the unaltered input arg and go through our heuristics:
             clazz = getHashFormatClass(in);
         }
 
-        if (clazz != null) {
-            //we found a HashFormat class - instantiate it:
-            hashFormat = newHashFormatInstance(clazz);
-        }
+        //we found a HashFormat class - instantiate it:
+        return clazz != null ? newHashFormatInstance(clazz) : null;
+    }
 
-        return hashFormat;
+    /**
+     * Returns the MCF ID of the given string, i.e. the token between the first two
+     * {@link ModularCryptFormat#TOKEN_DELIMITER delimiters}, or {@code null} if it is not MCF-formatted.
+     */
+    private static String getMcfId(String in) {
+        if (!in.startsWith(ModularCryptFormat.TOKEN_DELIMITER)) {
+            return null;
+        }
+        int start = ModularCryptFormat.TOKEN_DELIMITER.length();
+        int end = in.indexOf(ModularCryptFormat.TOKEN_DELIMITER, start);
+        String mcfId = end >= 0 ? in.substring(start, end) : in.substring(start);
+        return mcfId.isEmpty() ? null : mcfId;
     }
 
     /**
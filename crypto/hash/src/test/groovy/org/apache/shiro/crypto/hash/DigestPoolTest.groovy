@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash
+
+import org.junit.jupiter.api.Test
+
+import java.security.MessageDigest
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Unit tests for the {@link DigestPool} implementation.
+ *
+ * @since 3.1.0
+ */
+class DigestPoolTest {
+
+    @Test
+    void testReleasedDigestIsResetAndReused() {
+        // given: an algorithm no other test pools
+        def digest = DigestPool.borrow('SHA-384')
+        digest.update('partial'.bytes)
+
+        // when
+        DigestPool.release(digest)
+        def reused = DigestPool.borrow('SHA-384')
+
+        // then
+        assertSame digest, reused
+        assertArrayEquals MessageDigest.getInstance('SHA-384').digest('password'.bytes), reused.digest('password'.bytes)
+        DigestPool.release(reused)
+    }
+
+    @Test
+    void testBorrowedDigestsAreNotShared() {
+        def first = DigestPool.borrow('SHA-224')
+        def second = DigestPool.borrow('SHA-224')
+
+        assertNotSame first, second
+        DigestPool.release(first)
+        DigestPool.release(second)
+    }
+
+    @Test
+    void testIdleDigestsAreBounded() {
+        // given
+        def borrowed = (0..DigestPool.MAX_IDLE_DIGESTS).collect { DigestPool.borrow('SHA-512/256') }
+
+        // when: one more digest is released than the pool keeps
+        borrowed.each { DigestPool.release(it) }
+        def reused = (0..DigestPool.MAX_IDLE_DIGESTS).collect { DigestPool.borrow('SHA-512/256') }
+
+        // then
+        assertEquals DigestPool.MAX_IDLE_DIGESTS, reused.count { r -> borrowed.any { it.is(r) } }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash
+
+import org.apache.shiro.lang.util.ByteSource
+import org.junit.jupiter.api.Test
+
+import java.security.MessageDigest
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Unit tests for the {@link SimpleHash} implementation.
+ *
+ * @since 3.1.0
+ */
+class SimpleHashTest {
+
+    @Test
+    void testIteratedHashMatchesPlainDigests() {
+        // given
+        def salt = ByteSource.Util.bytes('salt')
+        def expected = MessageDigest.getInstance('SHA-256').with {
+            update(salt.bytes)
+            byte[] hashed = digest('password'.bytes)
+            2.times { hashed = MessageDigest.getInstance('SHA-256').digest(hashed) }
+            hashed
+        }
+
+        // when: hashed twice, reusing the pooled digest
+        def first = new SimpleHash('SHA-256', 'password', salt, 3)
+        def second = new SimpleHash('SHA-256', 'password', salt, 3)
+
+        // then
+        assertArrayEquals expected, first.bytes
+        assertArrayEquals expected, second.bytes
+        assertArrayEquals MessageDigest.getInstance('SHA-512').digest('password'.bytes),
+                new SimpleHash('SHA-512', 'password').bytes
+    }
+
+    @Test
+    void testOverriddenDigestIsNotPooled() {
+        // when: hashed with a digest supplied by a subclass, using an algorithm no other test pools
+        def hash = new SharedDigestHash('password')
+
+        // then
+        assertArrayEquals MessageDigest.getInstance('SHA3-256').digest('password'.bytes), hash.bytes
+        def pooled = DigestPool.borrow('SHA3-256')
+        assertNotSame SharedDigestHash.SHARED, pooled
+        DigestPool.release(pooled)
+    }
+
+    static class SharedDigestHash extends SimpleHash {
+
+        static final MessageDigest SHARED = MessageDigest.getInstance('SHA3-256')
+
+        SharedDigestHash(Object source) {
+            super('SHA3-256', source)
+        }
+
+        @Override
+        protected MessageDigest getDigest(String algorithmName) {
+            SHARED.reset()
+            return SHARED
+        }
+    }
+}
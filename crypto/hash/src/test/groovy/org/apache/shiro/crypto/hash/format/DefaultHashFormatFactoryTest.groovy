@@ -83,6 +83,23 @@ class DefaultHashFormatFactoryTest {
         assertTrue instance instanceof Shiro1CryptFormat
     }
 
+    @Test
+    void testGetInstanceWithMcfFormattedStringUsesResolvedMcfId() {
+        def formatted = new Shiro1CryptFormat().format(new Sha512Hash("test"))
+        def factory = new DefaultHashFormatFactory()
+
+        def first = factory.getInstance(formatted)
+        def second = factory.getInstance(formatted)
+
+        assertTrue first instanceof Shiro1CryptFormat
+        assertTrue second instanceof Shiro1CryptFormat
+        assertNotSame first, second
+
+        //changing the configuration discards the resolved MCF ids:
+        factory.formatClassNames = ['shiro1': HexFormat.class.name]
+        assertTrue factory.getInstance(formatted) instanceof HexFormat
+    }
+
     @Test
     void testAbsentFQCN() {
         def factory = new DefaultHashFormatFactory()
@@ -141,4 +158,15 @@ class DefaultHashFormatFactoryTest {
         }
 
     }
+
+    @Test
+    void testUnknownMcfIdDoesNotCacheInputFallback() {
+        def factory = new DefaultHashFormatFactory()
+        factory.formatClassNames = ['$unknown$match': Shiro1CryptFormat.class.name]
+
+        //the unknown MCF id falls back to the whole input, which must not be remembered for the id:
+        assertNull factory.getInstance('$unknown$other')
+        assertTrue factory.getInstance('$unknown$match') instanceof Shiro1CryptFormat
+        assertNull factory.getInstance('$unknown$other')
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.shiro.lang.codec.Base64;
 import org.apache.shiro.lang.util.ByteSource;
 import org.apache.shiro.lang.util.SimpleByteSource;
 import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator.BlockPool;
 import org.bouncycastle.crypto.params.Argon2Parameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -237,19 +238,26 @@ class Argon2Hash extends AbstractCryptHash {
                 throw new IllegalArgumentException("Unknown argon2 algorithm: " + algorithmName);
         }
 
+        //reuse the working memory of earlier computations if a pooled slot is available:
+        final Argon2MemoryPool memory = Argon2MemoryPool.shared();
+        final BlockPool slot = memory.acquire();
         final Argon2Parameters parameters = new Argon2Parameters.Builder(type)
                 .withVersion(argonVersion)
                 .withIterations(iterations)
                 .withParallelism(parallelism)
                 .withSalt(requireNonNull(salt, "salt").getBytes())
                 .withMemoryAsKB(memoryAsKB)
+                .withBlockPool(slot)
                 .build();
 
-        final Argon2BytesGenerator gen = new Argon2BytesGenerator();
-        gen.init(parameters);
-
         @SuppressWarnings("checkstyle:MagicNumber") final byte[] hash = new byte[outputLengthBits / 8];
-        gen.generateBytes(source.getBytes(), hash);
+        try {
+            final Argon2BytesGenerator gen = new Argon2BytesGenerator();
+            gen.init(parameters);
+            gen.generateBytes(source.getBytes(), hash);
+        } finally {
+            memory.release(slot);
+        }
 
         return new Argon2Hash(algorithmName, argonVersion, hash, new SimpleByteSource(salt), iterations, memoryAsKB, parallelism);
     }
@@ -48,6 +48,21 @@ public class Argon2HashProvider implements HashSpi {
 
     private static final Logger LOG = LoggerFactory.getLogger(Argon2HashProvider.class);
 
+    /**
+     * Sets the number of computations whose working memory is kept for reuse, {@code 0} (the default, unless set with
+     * the {@code shiro.crypto.argon2.memorySlots} system property) to allocate it for every hash.
+     *
+     * <p>Each slot retains up to 64 MiB, so the number of slots should be the number of hashes computed at the same
+     * time, e.g. the {@code maxConcurrentHashes} of the {@code PasswordHashingLimiter} bounding them.</p>
+     *
+     * @param slots the number of pooled memory slots, {@code 0} to disable pooling.
+     * @throws IllegalArgumentException if {@code slots} is negative.
+     * @since 3.1.0
+     */
+    public static void setMemoryPoolSlots(int slots) {
+        Argon2MemoryPool.setSharedSlots(slots);
+    }
+
     @Override
     public Set<String> getImplementedAlgorithms() {
         return Argon2Hash.getAlgorithmsArgon2();
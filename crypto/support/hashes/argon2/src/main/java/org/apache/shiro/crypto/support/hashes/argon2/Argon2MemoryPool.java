@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.support.hashes.argon2;
+
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator.BlockPool;
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator.FixedBlockPool;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the working memory of Argon2 computations for reuse, so that each hash does not allocate (and discard) its
+ * full memory cost, 64 MiB by default.
+ *
+ * <p>The memory is split into a bounded number of slots, each holding the 1 KiB blocks of one computation.  A
+ * computation {@link #acquire() acquires} an idle slot, hands it to Bouncy Castle as its
+ * {@link BlockPool BlockPool} - which returns every block to it once the hash is computed - and
+ * {@link #release(BlockPool) releases} it afterwards.  Slots are created on demand; if all slots are in use, the
+ * computation allocates its memory as usual.  Each slot retains at most {@link Argon2Hash#DEFAULT_MEMORY_KIB} blocks,
+ * and blocks are cleared whenever they are returned to or taken from a slot.</p>
+ *
+ * <p>Pooling is opt-in: as the retained memory is the number of slots times the memory cost, there are no slots by
+ * default.  The number of slots can be set with the system property {@value #SLOTS_PROPERTY} or with
+ * {@link Argon2HashProvider#setMemoryPoolSlots(int)}, and should match the number of hashes computed concurrently,
+ * i.e. the {@code maxConcurrentHashes} of the {@code PasswordHashingLimiter} in use: more slots than that are never
+ * used, fewer leave the remaining computations allocating their memory.</p>
+ *
+ * @since 3.1.0
+ */
+final class Argon2MemoryPool {
+
+    /**
+     * System property holding the number of pooled Argon2 memory slots.
+     */
+    static final String SLOTS_PROPERTY = "shiro.crypto.argon2.memorySlots";
+
+    private static volatile Argon2MemoryPool shared =
+            new Argon2MemoryPool(Integer.getInteger(SLOTS_PROPERTY, 0), Argon2Hash.DEFAULT_MEMORY_KIB);
+
+    private final Queue<BlockPool> idle = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final int maxSlots;
+
+    private final int blocksPerSlot;
+
+    Argon2MemoryPool(int maxSlots, int blocksPerSlot) {
+        if (maxSlots < 0) {
+            throw new IllegalArgumentException("The number of memory slots must not be negative: " + maxSlots);
+        }
+        this.maxSlots = maxSlots;
+        this.blocksPerSlot = blocksPerSlot;
+    }
+
+    static Argon2MemoryPool shared() {
+        return shared;
+    }
+
+    /**
+     * Replaces the shared pool with one holding up to the given number of slots.  Slots of the previous pool that are
+     * in use are discarded once released.
+     *
+     * @param maxSlots the maximum number of slots, {@code 0} to disable pooling.
+     */
+    static void setSharedSlots(int maxSlots) {
+        shared = new Argon2MemoryPool(maxSlots, Argon2Hash.DEFAULT_MEMORY_KIB);
+    }
+
+    /**
+     * Returns an idle slot for exclusive use by one computation, or {@code null} if all slots are in use.
+     *
+     * @return an idle slot, or {@code null} if none is available.
+     */
+    BlockPool acquire() {
+        BlockPool slot = idle.poll();
+        if (slot != null) {
+            return slot;
+        }
+        int count = created.get();
+        while (count < maxSlots) {
+            if (created.compareAndSet(count, count + 1)) {
+                return new FixedBlockPool(blocksPerSlot);
+            }
+            count = created.get();
+        }
+        return null;
+    }
+
+    /**
+     * Makes a slot previously {@link #acquire() acquired} available to other computations.
+     *
+     * @param slot the slot, may be {@code null}.
+     */
+    void release(BlockPool slot) {
+        if (slot != null) {
+            idle.offer(slot);
+        }
+    }
+
+    int getMaxSlots() {
+        return maxSlots;
+    }
+
+    int getCreatedSlots() {
+        return created.get();
+    }
+}
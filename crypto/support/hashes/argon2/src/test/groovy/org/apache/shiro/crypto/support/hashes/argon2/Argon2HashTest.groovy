@@ -89,4 +89,49 @@ class Argon2HashTest {
         assertEquals saltDataPart, recreatedSaltDataPart
     }
 
+    @Test
+    void testPooledMemoryProducesSameHashes() {
+        // given
+        def argon2String = '$argon2id$v=19$m=4096,t=3,p=4$MTIzNDU2Nzg5MDEyMzQ1Ng$bjcHqfb0LPHyS13eVaNcBga9LF12I3k34H5ULt2gyoI'
+        def argon2Hash = Argon2Hash.fromString argon2String
+        Argon2HashProvider.setMemoryPoolSlots 1
+
+        try {
+            // when: repeated computations reuse the blocks of a pooled slot
+            def first = argon2Hash.matchesPassword(TEST_PASSWORD_BS)
+            def wrong = argon2Hash.matchesPassword(new SimpleByteSource("wrong"))
+            def second = argon2Hash.matchesPassword(TEST_PASSWORD_BS)
+
+            // then
+            assertTrue first
+            assertFalse wrong
+            assertTrue second
+            assertEquals 1, Argon2MemoryPool.shared().createdSlots
+        } finally {
+            Argon2HashProvider.setMemoryPoolSlots 0
+        }
+    }
+
+    @Test
+    void testMemoryPoolIsOptIn() {
+        assertEquals Integer.getInteger(Argon2MemoryPool.SLOTS_PROPERTY, 0), Argon2MemoryPool.shared().maxSlots
+        assertThrows(IllegalArgumentException, { Argon2HashProvider.setMemoryPoolSlots(-1) } as Executable)
+    }
+
+    @Test
+    void testMemoryPoolIsBounded() {
+        // given
+        def pool = new Argon2MemoryPool(1, 16)
+
+        // when
+        def slot = pool.acquire()
+
+        // then
+        assertNotNull slot
+        assertNull pool.acquire()
+        pool.release slot
+        assertSame slot, pool.acquire()
+        assertEquals 1, pool.createdSlots
+    }
+
 }
@@ -19,6 +19,9 @@
 package org.apache.shiro.web.jaxrs;
 
 
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.AuthorizationDecisions;
+import org.apache.shiro.authz.annotation.Logical;
 import org.apache.shiro.authz.annotation.RequiresAuthentication;
 import org.apache.shiro.authz.annotation.RequiresGuest;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
@@ -41,13 +44,23 @@ import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A filter that grants or denies access to a JAX-RS resource based on the Shiro annotations on it.
+ * <p/>
+ * The permissions and roles required by the {@code RequiresPermissions}, {@code RequiresRoles} and
+ * {@code RolesAllowed} annotations are collected once when the filter is created, and evaluated with a single
+ * {@link org.apache.shiro.subject.Subject#getAuthorizationDecisions(Collection, Collection) batched authorization
+ * call} per request.  When a requirement is not met, its annotation handler is invoked to throw the same exception an
+ * unbatched check would.
  *
  * @see org.apache.shiro.authz.annotation
  * @since 1.4
@@ -56,13 +69,32 @@ public class AnnotationAuthorizationFilter implements ContainerRequestFilter {
 
     private final Map<AuthorizingAnnotationHandler, Annotation> authzChecks;
 
+    private final List<Requirement> requirements;
+
+    private final List<String> requiredPermissions;
+
+    private final List<String> requiredRoles;
+
     public AnnotationAuthorizationFilter(Collection<Annotation> authzSpecs) {
         Map<AuthorizingAnnotationHandler, Annotation> authChecks =
                 new HashMap<AuthorizingAnnotationHandler, Annotation>(authzSpecs.size());
+        List<Requirement> requirements = new ArrayList<Requirement>(authzSpecs.size());
+        Set<String> permissions = new LinkedHashSet<String>();
+        Set<String> roles = new LinkedHashSet<String>();
         for (Annotation authSpec : authzSpecs) {
-            authChecks.put(createHandler(authSpec), authSpec);
+            AuthorizingAnnotationHandler handler = createHandler(authSpec);
+            Requirement requirement = Requirement.of(authSpec, handler);
+            if (requirement == null) {
+                authChecks.put(handler, authSpec);
+                continue;
+            }
+            requirements.add(requirement);
+            Collections.addAll(requirement.role ? roles : permissions, requirement.identifiers);
         }
         this.authzChecks = Collections.unmodifiableMap(authChecks);
+        this.requirements = Collections.unmodifiableList(requirements);
+        this.requiredPermissions = Collections.unmodifiableList(new ArrayList<String>(permissions));
+        this.requiredRoles = Collections.unmodifiableList(new ArrayList<String>(roles));
     }
 
     private static AuthorizingAnnotationHandler createHandler(Annotation annotation) {
@@ -96,6 +128,68 @@ public class AnnotationAuthorizationFilter implements ContainerRequestFilter {
             Annotation authzSpec = authzCheck.getValue();
             handler.assertAuthorized(authzSpec);
         }
+
+        if (requirements.isEmpty()) {
+            return;
+        }
+        AuthorizationDecisions decisions =
+                SecurityUtils.getSubject().getAuthorizationDecisions(requiredPermissions, requiredRoles);
+        for (Requirement requirement : requirements) {
+            if (!requirement.isSatisfied(decisions)) {
+                // let the handler throw the appropriate exception:
+                requirement.handler.assertAuthorized(requirement.annotation);
+            }
+        }
     }
 
+    /**
+     * The permissions or roles a single annotation requires, evaluated against batched decisions.
+     */
+    private static final class Requirement {
+
+        private final Annotation annotation;
+
+        private final AuthorizingAnnotationHandler handler;
+
+        private final String[] identifiers;
+
+        private final boolean role;
+
+        private final boolean all;
+
+        private Requirement(Annotation annotation, AuthorizingAnnotationHandler handler,
+                            String[] identifiers, boolean role, boolean all) {
+            this.annotation = annotation;
+            this.handler = handler;
+            this.identifiers = identifiers.clone();
+            this.role = role;
+            this.all = all;
+        }
+
+        private static Requirement of(Annotation annotation, AuthorizingAnnotationHandler handler) {
+            if (annotation instanceof RequiresPermissions) {
+                RequiresPermissions rp = (RequiresPermissions) annotation;
+                return new Requirement(annotation, handler, rp.value(), false, Logical.AND.equals(rp.logical()));
+            } else if (annotation instanceof RequiresRoles) {
+                RequiresRoles rr = (RequiresRoles) annotation;
+                return new Requirement(annotation, handler, rr.value(), true, Logical.AND.equals(rr.logical()));
+            } else if (annotation instanceof RolesAllowed) {
+                return new Requirement(annotation, handler, ((RolesAllowed) annotation).value(), true, false);
+            }
+            return null;
+        }
+
+        private boolean isSatisfied(AuthorizationDecisions decisions) {
+            if (identifiers.length == 0) {
+                return false;
+            }
+            for (String identifier : identifiers) {
+                boolean granted = role ? decisions.hasRole(identifier) : decisions.isPermitted(identifier);
+                if (granted != all) {
+                    return granted;
+                }
+            }
+            return all;
+        }
+    }
 }
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.web.jaxrs
+
+import org.apache.shiro.authz.AuthorizationDecisions
+import org.apache.shiro.authz.UnauthenticatedException
+import org.apache.shiro.authz.UnauthorizedException
+import org.apache.shiro.authz.annotation.Logical
+import org.apache.shiro.authz.annotation.RequiresAuthentication
+import org.apache.shiro.authz.annotation.RequiresPermissions
+import org.apache.shiro.authz.annotation.RequiresRoles
+import org.apache.shiro.subject.Subject
+import org.apache.shiro.util.ThreadContext
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+
+import jakarta.annotation.security.DenyAll
+import jakarta.annotation.security.PermitAll
+import jakarta.annotation.security.RolesAllowed
+import java.lang.annotation.Annotation
+
+import static org.easymock.EasyMock.*
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for {@link AnnotationAuthorizationFilter}.
+ * @since 3.1.0
+ */
+class AnnotationAuthorizationFilterTest {
+
+    @AfterEach
+    void tearDown() {
+        ThreadContext.unbindSubject()
+    }
+
+    @Test
+    void testAllPermissionsRequired() {
+        def subject = bindSubject()
+        def denied = new UnauthorizedException("denied")
+        expect(subject.getAuthorizationDecisions(["perm:a", "perm:b"], []))
+                .andReturn(new AuthorizationDecisions(["perm:a": true, "perm:b": false], [:]))
+        subject.checkPermissions("perm:a", "perm:b")
+        expectLastCall().andThrow(denied)
+        replay subject
+
+        def filter = createFilter("allPermissions")
+        assertSame denied, assertThrows(UnauthorizedException) { filter.filter(null) }
+
+        verify subject
+    }
+
+    @Test
+    void testAllPermissionsGranted() {
+        def subject = bindSubject()
+        expect(subject.getAuthorizationDecisions(["perm:a", "perm:b"], []))
+                .andReturn(new AuthorizationDecisions(["perm:a": true, "perm:b": true], [:]))
+        replay subject
+
+        createFilter("allPermissions").filter(null)
+
+        verify subject
+    }
+
+    @Test
+    void testAnyPermissionGranted() {
+        def subject = bindSubject()
+        expect(subject.getAuthorizationDecisions(["perm:a", "perm:b"], []))
+                .andReturn(new AuthorizationDecisions(["perm:a": false, "perm:b": true], [:]))
+        replay subject
+
+        createFilter("anyPermission").filter(null)
+
+        verify subject
+    }
+
+    @Test
+    void testAnyPermissionDenied() {
+        def subject = bindSubject()
+        def denied = new UnauthorizedException("denied")
+        expect(subject.getAuthorizationDecisions(["perm:a", "perm:b"], []))
+                .andReturn(new AuthorizationDecisions(["perm:a": false, "perm:b": false], [:]))
+        expect(subject.isPermitted("perm:a")).andReturn(false)
+        expect(subject.isPermitted("perm:b")).andReturn(false)
+        subject.checkPermission("perm:a")
+        expectLastCall().andThrow(denied)
+        replay subject
+
+        def filter = createFilter("anyPermission")
+        assertSame denied, assertThrows(UnauthorizedException) { filter.filter(null) }
+
+        verify subject
+    }
+
+    @Test
+    void testRolesAllowedRequiresAnyRole() {
+        def subject = bindSubject()
+        expect(subject.getAuthorizationDecisions([], ["admin", "user"]))
+                .andReturn(new AuthorizationDecisions([:], ["admin": false, "user": true]))
+        replay subject
+
+        createFilter("rolesAllowed").filter(null)
+
+        verify subject
+    }
+
+    @Test
+    void testRolesAllowedDenied() {
+        def subject = bindSubject()
+        def denied = new UnauthorizedException("denied")
+        expect(subject.getAuthorizationDecisions([], ["admin", "user"]))
+                .andReturn(new AuthorizationDecisions([:], ["admin": false, "user": false]))
+        expect(subject.hasRole("admin")).andReturn(false)
+        expect(subject.hasRole("user")).andReturn(false)
+        subject.checkRole("admin")
+        expectLastCall().andThrow(denied)
+        replay subject
+
+        def filter = createFilter("rolesAllowed")
+        assertSame denied, assertThrows(UnauthorizedException) { filter.filter(null) }
+
+        verify subject
+    }
+
+    @Test
+    void testRolesAndPermissionsBatched() {
+        def subject = bindSubject()
+        def denied = new UnauthorizedException("denied")
+        expect(subject.getAuthorizationDecisions(["perm:a"], ["admin"]))
+                .andReturn(new AuthorizationDecisions(["perm:a": true], ["admin": false]))
+        subject.checkRole("admin")
+        expectLastCall().andThrow(denied)
+        replay subject
+
+        def filter = createFilter("roleAndPermission")
+        assertSame denied, assertThrows(UnauthorizedException) { filter.filter(null) }
+
+        verify subject
+    }
+
+    @Test
+    void testEmptyValueDefersToHandler() {
+        def subject = bindSubject()
+        expect(subject.getAuthorizationDecisions([], [])).andReturn(new AuthorizationDecisions([:], [:]))
+        subject.checkRoles([])
+        replay subject
+
+        createFilter("noRoles").filter(null)
+
+        verify subject
+    }
+
+    @Test
+    void testAuthenticationCheckedBeforeRequirements() {
+        def subject = bindSubject()
+        expect(subject.isAuthenticated()).andReturn(false)
+        replay subject
+
+        def filter = createFilter("authenticatedAdmin")
+        assertThrows(UnauthenticatedException) { filter.filter(null) }
+
+        // the batched decisions must not be requested for an unauthenticated subject
+        verify subject
+    }
+
+    @Test
+    void testDenyAllCheckedBeforeRequirements() {
+        def subject = bindSubject()
+        replay subject
+
+        def filter = createFilter("deniedAdmin")
+        assertThrows(UnauthenticatedException) { filter.filter(null) }
+
+        verify subject
+    }
+
+    @Test
+    void testPermitAllDoesNotSkipRequirements() {
+        def subject = bindSubject()
+        expect(subject.getAuthorizationDecisions([], ["admin"]))
+                .andReturn(new AuthorizationDecisions([:], ["admin": true]))
+        replay subject
+
+        createFilter("permittedAdmin").filter(null)
+
+        verify subject
+    }
+
+    @Test
+    void testNoRequirements() {
+        def subject = bindSubject()
+        replay subject
+
+        new AnnotationAuthorizationFilter([]).filter(null)
+
+        verify subject
+    }
+
+    private static Subject bindSubject() {
+        def subject = createStrictMock(Subject)
+        ThreadContext.bind(subject)
+        return subject
+    }
+
+    private static AnnotationAuthorizationFilter createFilter(String methodName) {
+        Annotation[] annotations = Resource.getDeclaredMethod(methodName).getAnnotations()
+        return new AnnotationAuthorizationFilter(Arrays.asList(annotations))
+    }
+
+    @SuppressWarnings("unused")
+    private static class Resource {
+
+        @RequiresPermissions(["perm:a", "perm:b"])
+        void allPermissions() {
+        }
+
+        @RequiresPermissions(value = ["perm:a", "perm:b"], logical = Logical.OR)
+        void anyPermission() {
+        }
+
+        @RolesAllowed(["admin", "user"])
+        void rolesAllowed() {
+        }
+
+        @RequiresPermissions("perm:a")
+        @RequiresRoles("admin")
+        void roleAndPermission() {
+        }
+
+        @RequiresRoles([])
+        void noRoles() {
+        }
+
+        @RequiresAuthentication
+        @RequiresRoles("admin")
+        void authenticatedAdmin() {
+        }
+
+        @DenyAll
+        @RequiresRoles("admin")
+        void deniedAdmin() {
+        }
+
+        @PermitAll
+        @RequiresRoles("admin")
+        void permittedAdmin() {
+        }
+    }
+}
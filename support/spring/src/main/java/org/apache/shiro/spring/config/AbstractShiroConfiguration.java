@@ -26,6 +26,7 @@ import org.apache.shiro.authz.Authorizer;
 import org.apache.shiro.authz.ModularRealmAuthorizer;
 import org.apache.shiro.authz.permission.PermissionResolver;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
 import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.config.Ini;
 import org.apache.shiro.event.EventBus;
@@ -72,6 +73,9 @@ public class AbstractShiroConfiguration {
     @Value("#{ @environment['shiro.sessionManager.deleteInvalidSessions'] ?: true }")
     protected boolean sessionManagerDeleteInvalidSessions;
 
+    @Value("#{ @environment['shiro.permissionResolver.cacheSize'] ?: 0 }")
+    protected int permissionResolverCacheSize;
+
 
     protected SessionsSecurityManager securityManager(List<Realm> realms) {
         SessionsSecurityManager securityManager = createSecurityManager();
@@ -140,8 +144,9 @@ public class AbstractShiroConfiguration {
     protected Authorizer authorizer() {
         ModularRealmAuthorizer authorizer = new ModularRealmAuthorizer();
 
-        if (permissionResolver != null) {
-            authorizer.setPermissionResolver(permissionResolver);
+        PermissionResolver resolver = authorizerPermissionResolver();
+        if (resolver != null) {
+            authorizer.setPermissionResolver(resolver);
         }
 
         if (rolePermissionResolver != null) {
@@ -151,6 +156,29 @@ public class AbstractShiroConfiguration {
         return authorizer;
     }
 
+    /**
+     * Returns the {@link PermissionResolver} to apply to all realms, or {@code null} if realms should keep their own.
+     * If a positive {@code shiro.permissionResolver.cacheSize} is configured, the permission cache of the configured
+     * (or a new default) {@link WildcardPermissionResolver} is enabled with that size.
+     *
+     * @return the {@link PermissionResolver} to apply to all realms, or {@code null} if realms should keep their own.
+     * @since 3.1.0
+     */
+    protected PermissionResolver authorizerPermissionResolver() {
+        if (permissionResolverCacheSize <= 0) {
+            return permissionResolver;
+        }
+        if (permissionResolver == null) {
+            WildcardPermissionResolver resolver = new WildcardPermissionResolver();
+            resolver.setPermissionCacheSize(permissionResolverCacheSize);
+            return resolver;
+        }
+        if (permissionResolver instanceof WildcardPermissionResolver resolver && resolver.getPermissionCacheSize() == 0) {
+            resolver.setPermissionCacheSize(permissionResolverCacheSize);
+        }
+        return permissionResolver;
+    }
+
     protected AuthenticationStrategy authenticationStrategy() {
         return new AtLeastOneSuccessfulStrategy();
     }
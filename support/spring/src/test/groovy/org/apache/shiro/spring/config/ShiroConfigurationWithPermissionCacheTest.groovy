@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.spring.config
+
+import org.apache.shiro.authc.UsernamePasswordToken
+import org.apache.shiro.authz.ModularRealmAuthorizer
+import org.apache.shiro.authz.permission.WildcardPermissionResolver
+import org.apache.shiro.mgt.DefaultSecurityManager
+import org.apache.shiro.mgt.SecurityManager
+import org.apache.shiro.spring.testconfig.RealmTestConfiguration
+import org.apache.shiro.subject.Subject
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.test.context.TestPropertySource
+import org.springframework.test.context.junit.jupiter.SpringExtension
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * @since 3.1.0
+ */
+@SpringJUnitConfig(classes = [RealmTestConfiguration, ShiroConfiguration])
+@TestPropertySource(properties = ["shiro.permissionResolver.cacheSize=100"])
+@ExtendWith(SpringExtension.class)
+class ShiroConfigurationWithPermissionCacheTest {
+
+    @Autowired
+    private SecurityManager securityManager
+
+    @Test
+    void testPermissionCacheConfiguration() {
+        def authorizer = (ModularRealmAuthorizer) ((DefaultSecurityManager) securityManager).getAuthorizer()
+        def resolver = (WildcardPermissionResolver) authorizer.permissionResolver
+        assertEquals 100, resolver.permissionCacheSize
+
+        Subject joeCoder = new Subject.Builder(securityManager).buildSubject()
+        joeCoder.login(new UsernamePasswordToken("joe.coder", "password"))
+        joeCoder.checkPermission("read")
+        joeCoder.checkPermission("read")
+        assertTrue resolver.permissionCacheHits > 0
+        joeCoder.logout()
+    }
+}